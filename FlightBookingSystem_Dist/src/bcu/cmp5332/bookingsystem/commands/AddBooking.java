@@ -1,7 +1,7 @@
 package bcu.cmp5332.bookingsystem.commands;
 
 import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.Snapshot;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.*;
 
@@ -19,7 +19,8 @@ public class AddBooking implements Command {
 
     /**
      * Constructs an <code>AddBooking</code> command with optional seat type
-     * and food option. If either is null, a default might be used or handled.
+     * and food option. A null seat type defaults to economy and a null food
+     * option to no meal.
      *
      * @param customerId the ID of the customer making the booking
      * @param flightId   the ID of the flight
@@ -29,8 +30,8 @@ public class AddBooking implements Command {
     public AddBooking(int customerId, int flightId, SeatType seatType, FoodOption foodOption) {
         this.customerId = customerId;
         this.flightId = flightId;
-        this.seatType = seatType;
-        this.foodOption = foodOption;
+        this.seatType = (seatType != null) ? seatType : SeatType.ECONOMY;
+        this.foodOption = (foodOption != null) ? foodOption : FoodOption.NO_MEAL;
     }
 
     /**
@@ -44,51 +45,48 @@ public class AddBooking implements Command {
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // 1) Take snapshot for rollback
-        Snapshot backup = FlightBookingSystemData.createSnapshot(fbs);
+        // 1) Begin a transaction; leaving this block uncommitted rolls it back
+        try (Transaction tx = fbs.beginTransaction()) {
+            try {
+                // 2) Validate
+                Customer customer = fbs.getCustomerById(customerId);
+                Flight flight = fbs.getFlightById(flightId);
 
-        try {
-            // 2) Validate
-            Customer customer = fbs.getCustomerById(customerId);
-            Flight flight = fbs.getFlightById(flightId);
+                // Example simple seat-based pricing
+                double base = flight.getBasePrice();
+                double seatMultiplier = 1.0;
+                if (seatType == SeatType.BUSINESS) {
+                    seatMultiplier = 1.5;
+                } else if (seatType == SeatType.FIRST) {
+                    seatMultiplier = 2.0;
+                }
+                double finalPrice = base * seatMultiplier;
 
-            if (flight.isFull(seatType)) {
-                throw new FlightBookingSystemException("No seats available in " + seatType + " class.");
-            }
-
-            // Example simple seat-based pricing
-            double base = flight.getBasePrice();
-            double seatMultiplier = 1.0;
-            if (seatType == SeatType.BUSINESS) {
-                seatMultiplier = 1.5;
-            } else if (seatType == SeatType.FIRST) {
-                seatMultiplier = 2.0;
-            }
-            double finalPrice = base * seatMultiplier;
+                // 3) Create the booking object
+                Booking booking = new Booking(customer, flight, fbs.getSystemDate());
+                booking.setSeatType(seatType);
+                booking.setFoodOption(foodOption);
+                booking.setBookingPrice(finalPrice);
 
-            // 3) Create the booking object
-            Booking booking = new Booking(customer, flight, fbs.getSystemDate());
-            booking.setSeatType(seatType);
-            booking.setFoodOption(foodOption);
-            booking.setBookingPrice(finalPrice);
+                // 4) Take the seat and link booking with customer/flight; fails if the
+                //    class sold out, even to a concurrent booking
+                tx.bookSeat(booking);
 
-            // 4) Link booking with customer/flight
-            customer.addBooking(booking);
-            flight.addPassenger(customer, seatType);
+                // 5) Attempt to journal the new booking
+                FlightBookingSystemData.append(fbs, tx, JournalEntry.addBooking(booking));
+                tx.commit();
 
-            // 5) Attempt to store updated system
-            FlightBookingSystemData.store(fbs);
+                System.out.println("Booking added with seat=" + seatType + ", food=" + foodOption + ", price=$" + finalPrice);
 
-            System.out.println("Booking added with seat=" + seatType + ", food=" + foodOption + ", price=$" + finalPrice);
+            } catch (IOException ex) {
+                // rollback
+                tx.rollback();
+                throw new FlightBookingSystemException("Failed to store. Rolled back.\n" + ex.getMessage());
 
-        } catch (IOException ex) {
-            // rollback
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Failed to store. Rolled back.\n" + ex.getMessage());
-
-        } catch (Exception ex) {
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Error: " + ex.getMessage());
+            } catch (Exception ex) {
+                tx.rollback();
+                throw new FlightBookingSystemException("Error: " + ex.getMessage());
+            }
         }
     }
 }
@@ -1,16 +1,19 @@
 package bcu.cmp5332.bookingsystem.commands;
 
 import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.Snapshot;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.Transaction;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 /**
  * A command that creates a new Customer record in the system.
- * It assigns an auto-generated ID based on <code>fbs.getAllCustomers().size() + 1</code>.
+ * It assigns an auto-generated ID from the customer ID allocator, and refuses
+ * an email address or phone number that already belongs to an active customer.
  */
 public class AddCustomer implements Command {
     private final String name;
@@ -35,27 +38,45 @@ public class AddCustomer implements Command {
      * If storing fails, it rolls back.
      *
      * @param fbs the flight booking system
-     * @throws FlightBookingSystemException if storing fails or other logic errors occur
+     * @throws FlightBookingSystemException if the email or phone is already in use,
+     *                                      storing fails or other logic errors occur
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // 1) Take a snapshot
-        Snapshot backup = FlightBookingSystemData.createSnapshot(fbs);
-
-        // 2) Modify the system in memory
-        int newId = fbs.getAllCustomers().size() + 1;
-        Customer customer = new Customer(newId, name, phone, email, false);
-        fbs.addCustomer(customer);
-
-        // 3) Attempt to store
-        try {
-            FlightBookingSystemData.store(fbs);
-        } catch (IOException ex) {
-            // 4) Rollback if storing fails
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Failed to store data. Changes rolled back.\n" + ex.getMessage());
+        // 0) Refuse duplicate accounts
+        Customer existing = fbs.findCustomerByEmail(email);
+        if (existing != null) {
+            throw new FlightBookingSystemException(
+                "Customer #" + existing.getId() + " already has email " + email + ".");
         }
+        existing = fbs.findCustomerByPhone(phone);
+        if (existing != null) {
+            throw new FlightBookingSystemException(
+                "Customer #" + existing.getId() + " already has phone " + phone + ".");
+        }
+
+        // 1) Begin a transaction; leaving this block uncommitted rolls it back
+        try (Transaction tx = fbs.beginTransaction()) {
+            // 2) Modify the system in memory
+            Customer customer;
+            try {
+                customer = new Customer(name, phone, email);
+            } catch (UncheckedIOException ex) {
+                throw new FlightBookingSystemException("Failed to allocate a customer ID.\n" + ex.getCause().getMessage());
+            }
+            tx.addCustomer(customer);
 
-        System.out.println("Customer added successfully: " + name);
+            // 3) Attempt to store
+            try {
+                FlightBookingSystemData.append(fbs, tx, JournalEntry.addCustomer(customer));
+                tx.commit();
+            } catch (IOException ex) {
+                // 4) Rollback if storing fails
+                tx.rollback();
+                throw new FlightBookingSystemException("Failed to store data. Changes rolled back.\n" + ex.getMessage());
+            }
+
+            System.out.println("Customer added successfully: " + name);
+        }
     }
 }
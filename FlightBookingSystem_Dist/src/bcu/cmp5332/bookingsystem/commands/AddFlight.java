@@ -1,11 +1,13 @@
 package bcu.cmp5332.bookingsystem.commands;
 
 import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.Snapshot;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.Transaction;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 
 /**
@@ -50,42 +52,45 @@ public class AddFlight implements Command {
 
     /**
      * Executes the addition of a new flight, storing it in the system. If storing
-     * fails, the system is rolled back to a previous snapshot.
+     * fails, the addition is rolled back.
      *
      * @param fbs the flight booking system
      * @throws FlightBookingSystemException if saving fails or other errors occur
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // 1) Take a snapshot
-        Snapshot backup = FlightBookingSystemData.createSnapshot(fbs);
+        // 1) Begin a transaction; leaving this block uncommitted rolls it back
+        try (Transaction tx = fbs.beginTransaction()) {
+            // 2) Create a new flight with the next available ID
+            Flight flight;
+            try {
+                flight = new Flight(
+                    flightNumber,
+                    origin,
+                    destination,
+                    departureDate,
+                    econCap,
+                    bizCap,
+                    firstCap,
+                    basePrice
+                );
+            } catch (UncheckedIOException ex) {
+                throw new FlightBookingSystemException("Failed to allocate a flight ID.\n" + ex.getCause().getMessage());
+            }
 
-        // 2) Create a new flight with the next available ID
-        int newId = fbs.getAllFlights().size() + 1;
-        Flight flight = new Flight(
-            newId,
-            flightNumber,
-            origin,
-            destination,
-            departureDate,
-            econCap,
-            bizCap,
-            firstCap,
-            basePrice,
-            false
-        );
+            tx.addFlight(flight);
 
-        fbs.addFlight(flight);
+            // 3) Attempt to store
+            try {
+                FlightBookingSystemData.append(fbs, tx, JournalEntry.addFlight(flight));
+                tx.commit();
+            } catch (IOException ex) {
+                // 4) Rollback on failure
+                tx.rollback();
+                throw new FlightBookingSystemException("Failed to store data. Changes rolled back.\n" + ex.getMessage());
+            }
 
-        // 3) Attempt to store
-        try {
-            FlightBookingSystemData.store(fbs);
-        } catch (IOException ex) {
-            // 4) Rollback on failure
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Failed to store data. Changes rolled back.\n" + ex.getMessage());
+            System.out.println("Flight added successfully: " + flightNumber);
         }
-
-        System.out.println("Flight added successfully: " + flightNumber);
     }
 }
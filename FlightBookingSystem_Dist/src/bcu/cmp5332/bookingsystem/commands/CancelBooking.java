@@ -1,10 +1,11 @@
 package bcu.cmp5332.bookingsystem.commands;
 
 import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.Snapshot;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.*;
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * A command that cancels an existing booking. It removes the booking from the
@@ -37,44 +38,39 @@ public class CancelBooking implements Command {
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // 1) Take snapshot for rollback
-        Snapshot backup = FlightBookingSystemData.createSnapshot(fbs);
-
         Customer customer = fbs.getCustomerById(customerId);
         Flight flight = fbs.getFlightById(flightId);
 
         // Locate the relevant booking
-        Booking bookingToCancel = null;
-        for (Booking b : customer.getBookings()) {
-            if (b.getFlight().getId() == flightId) {
-                bookingToCancel = b;
-                break;
-            }
-        }
-        if (bookingToCancel == null) {
+        Collection<Booking> flightBookings = customer.getBookings(flight);
+        if (flightBookings.isEmpty()) {
             throw new FlightBookingSystemException(
                 "No booking found for customer " + customerId + " on flight " + flightId
             );
         }
 
-        // Apply a fixed cancellation fee
-        double cancellationFee = 50.0;
-        bookingToCancel.setFee(cancellationFee);
+        // Begin a transaction; leaving this block uncommitted rolls it back
+        try (Transaction tx = fbs.beginTransaction()) {
+            // Apply a fixed cancellation fee
+            double cancellationFee = 50.0;
+            tx.setFee(flightBookings.iterator().next(), cancellationFee);
 
-        // Remove references
-        customer.cancelBookingForFlight(flight);
-        flight.removePassenger(customer);
+            // Remove references
+            tx.cancelBookingForFlight(customer, flight);
+            tx.removePassenger(flight, customer);
 
-        // Attempt to store or rollback
-        try {
-            FlightBookingSystemData.store(fbs);
-        } catch (IOException ex) {
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException(
-                "Failed to store data. Cancellation rolled back.\n" + ex.getMessage()
-            );
-        }
+            // Attempt to store or rollback
+            try {
+                FlightBookingSystemData.append(fbs, tx, JournalEntry.cancelBooking(customer, flight));
+                tx.commit();
+            } catch (IOException ex) {
+                tx.rollback();
+                throw new FlightBookingSystemException(
+                    "Failed to store data. Cancellation rolled back.\n" + ex.getMessage()
+                );
+            }
 
-        System.out.println("Booking cancelled. Cancellation fee of $" + cancellationFee + " applied.");
+            System.out.println("Booking cancelled. Cancellation fee of $" + cancellationFee + " applied.");
+        }
     }
 }
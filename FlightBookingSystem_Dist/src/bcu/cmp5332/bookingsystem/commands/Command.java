@@ -17,13 +17,17 @@ public interface Command {
     public static final String HELP_MESSAGE = "Commands:\n"
         + "\tlistflights                               print all flights\n"
         + "\tlistcustomers                             print all customers\n"
+        + "\tfindcustomer email|phone [value]          find a customer by email or phone\n"
         + "\taddflight                                 add a new flight\n"
         + "\taddcustomer                               add a new customer\n"
         + "\tshowflight [flight id]                    show flight details\n"
+        + "\tsearchflights [origin] [dest] [from] [to] search flights; use * for any\n"
         + "\tshowcustomer [customer id]                show customer details\n"
         + "\taddbooking [customer id] [flight id]      add a new booking\n"
         + "\tcancelbooking [customer id] [flight id]   cancel a booking\n"
         + "\teditbooking [booking id] [flight id]      update a booking\n"
+        + "\tsnapshot                                  write a binary snapshot for fast start-up\n"
+        + "\tflush                                     wait until all changes are written to disk\n"
         + "\tloadgui                                   loads the GUI version of the app\n"
         + "\thelp                                      prints this help message\n"
         + "\texit                                      exits the program";
@@ -1,10 +1,11 @@
 package bcu.cmp5332.bookingsystem.commands;
 
 import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.Snapshot;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.Transaction;
 
 import java.io.IOException;
 
@@ -34,22 +35,23 @@ public class DeleteCustomer implements Command {
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // 1) Snapshot for potential rollback
-        Snapshot backup = FlightBookingSystemData.createSnapshot(fbs);
-
-        // 2) Locate customer and mark as deleted
-        Customer customer = fbs.getCustomerById(customerId);
-        customer.setDeleted(true);
-
-        // 3) Attempt to store
-        try {
-            FlightBookingSystemData.store(fbs);
-        } catch (IOException ex) {
-            // 4) Roll back on failure
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Failed to store data. Deletion rolled back.\n" + ex.getMessage());
+        // 1) Begin a transaction; leaving this block uncommitted rolls it back
+        try (Transaction tx = fbs.beginTransaction()) {
+            // 2) Locate customer and mark as deleted
+            Customer customer = fbs.getCustomerById(customerId);
+            tx.setDeleted(customer, true);
+
+            // 3) Attempt to store
+            try {
+                FlightBookingSystemData.append(fbs, tx, JournalEntry.deleteCustomer(customer));
+                tx.commit();
+            } catch (IOException ex) {
+                // 4) Roll back on failure
+                tx.rollback();
+                throw new FlightBookingSystemException("Failed to store data. Deletion rolled back.\n" + ex.getMessage());
+            }
+
+            System.out.println("Customer #" + customerId + " marked as deleted.");
         }
-
-        System.out.println("Customer #" + customerId + " marked as deleted.");
     }
 }
@@ -1,10 +1,11 @@
 package bcu.cmp5332.bookingsystem.commands;
 
 import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.Snapshot;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.Transaction;
 
 import java.io.IOException;
 
@@ -34,22 +35,23 @@ public class DeleteFlight implements Command {
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // 1) Snapshot for rollback
-        Snapshot backup = FlightBookingSystemData.createSnapshot(fbs);
-
-        // 2) Find flight and mark it as deleted
-        Flight flight = fbs.getFlightById(flightId);
-        flight.setDeleted(true);
-
-        // 3) Try saving
-        try {
-            FlightBookingSystemData.store(fbs);
-        } catch (IOException ex) {
-            // 4) Roll back if saving fails
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Failed to store data. Deletion rolled back.\n" + ex.getMessage());
+        // 1) Begin a transaction; leaving this block uncommitted rolls it back
+        try (Transaction tx = fbs.beginTransaction()) {
+            // 2) Find flight and mark it as deleted
+            Flight flight = fbs.getFlightById(flightId);
+            tx.setDeleted(flight, true);
+
+            // 3) Try saving
+            try {
+                FlightBookingSystemData.append(fbs, tx, JournalEntry.deleteFlight(flight));
+                tx.commit();
+            } catch (IOException ex) {
+                // 4) Roll back if saving fails
+                tx.rollback();
+                throw new FlightBookingSystemException("Failed to store data. Deletion rolled back.\n" + ex.getMessage());
+            }
+
+            System.out.println("Flight #" + flightId + " marked as deleted.");
         }
-
-        System.out.println("Flight #" + flightId + " marked as deleted.");
     }
 }
@@ -1,12 +1,13 @@
 package bcu.cmp5332.bookingsystem.commands;
 
 import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.Snapshot;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 import bcu.cmp5332.bookingsystem.model.SeatType;
+import bcu.cmp5332.bookingsystem.model.Transaction;
 import bcu.cmp5332.bookingsystem.model.Customer;
 
 import java.io.IOException;
@@ -46,8 +47,8 @@ public class EditBooking implements Command {
     }
 
     /**
-     * Executes the booking update, removing the passenger from the old flight,
-     * adding them to the new flight (with the seat type if applicable),
+     * Executes the booking update, giving up the booking's seat on the old flight,
+     * adding the customer to the new flight (with the seat type if applicable),
      * and applying a rebooking fee.
      *
      * @param fbs the flight booking system to modify
@@ -56,63 +57,63 @@ public class EditBooking implements Command {
      */
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
-        // 1) Snapshot
-        Snapshot backup = FlightBookingSystemData.createSnapshot(fbs);
-
-        try {
-            // 2) Find the existing booking
-            Booking booking = fbs.getBookingById(bookingId);
-
-            // old flight & seat type
-            Flight oldFlight = booking.getFlight();
-            SeatType oldSeatType = booking.getSeatType();
-            Customer customer = booking.getCustomer();
-
-            // new flight
-            Flight newFlight = fbs.getFlightById(newFlightId);
-
-            // seat type to use
-            SeatType seatTypeToUse = (newSeatType != null) ? newSeatType : oldSeatType;
-
-            // check capacity on new flight
-            if (newFlight.isFull(seatTypeToUse)) {
-                throw new FlightBookingSystemException(
-                    "Cannot update booking. New flight is full in " + seatTypeToUse + " class."
+        // 1) Begin a transaction; leaving this block uncommitted rolls it back
+        try (Transaction tx = fbs.beginTransaction()) {
+            try {
+                // 2) Find the existing booking
+                Booking booking = fbs.getBookingById(bookingId);
+
+                // old flight & seat type
+                Flight oldFlight = booking.getFlight();
+                SeatType oldSeatType = booking.getSeatType();
+                Customer customer = booking.getCustomer();
+
+                // new flight
+                Flight newFlight = fbs.getFlightById(newFlightId);
+
+                // seat type to use
+                SeatType seatTypeToUse = (newSeatType != null) ? newSeatType : oldSeatType;
+
+                // give up this booking's seat on the old flight
+                tx.unlinkPassenger(oldFlight, customer, oldSeatType);
+
+                // add to new flight; the reservation itself is the capacity check
+                try {
+                    tx.addPassenger(newFlight, customer, seatTypeToUse);
+                } catch (IllegalStateException ex) {
+                    tx.rollback();
+                    throw new FlightBookingSystemException(
+                        "Cannot update booking. New flight is full in " + seatTypeToUse + " class."
+                    );
+                }
+
+                // update booking references
+                tx.moveBooking(booking, newFlight, seatTypeToUse);
+
+                // rebooking fee
+                double rebookingFee = 30.0;
+                tx.setFee(booking, rebookingFee);
+
+                // journal the change
+                FlightBookingSystemData.append(fbs, tx, JournalEntry.editBooking(booking));
+                tx.commit();
+
+                System.out.println(
+                    "Booking #" + bookingId +
+                    " updated to Flight #" + newFlightId +
+                    " (seat type=" + seatTypeToUse + "). Fee=$" + rebookingFee
                 );
-            }
-
-            // remove from old flight
-            oldFlight.removePassenger(customer);
 
-            // add to new flight
-            newFlight.addPassenger(customer, seatTypeToUse);
+            } catch (IOException ex) {
+                // rollback
+                tx.rollback();
+                throw new FlightBookingSystemException("Failed to store updated booking. Rolled back.\n" + ex.getMessage());
 
-            // update booking references
-            booking.setFlight(newFlight);
-            booking.setSeatType(seatTypeToUse);
-
-            // rebooking fee
-            double rebookingFee = 30.0;
-            booking.setFee(rebookingFee);
-
-            // store
-            FlightBookingSystemData.store(fbs);
-
-            System.out.println(
-                "Booking #" + bookingId +
-                " updated to Flight #" + newFlightId +
-                " (seat type=" + seatTypeToUse + "). Fee=$" + rebookingFee
-            );
-
-        } catch (IOException ex) {
-            // rollback
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Failed to store updated booking. Rolled back.\n" + ex.getMessage());
-
-        } catch (IllegalArgumentException ex) {
-            // also rollback
-            FlightBookingSystemData.restoreFromSnapshot(fbs, backup);
-            throw new FlightBookingSystemException("Error updating booking: " + ex.getMessage());
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                // also rollback
+                tx.rollback();
+                throw new FlightBookingSystemException("Error updating booking: " + ex.getMessage());
+            }
         }
     }
 }
@@ -0,0 +1,51 @@
+package bcu.cmp5332.bookingsystem.commands;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+/**
+ * A command that looks up an active customer by email address or phone number
+ * and prints their details.
+ */
+public class FindCustomer implements Command {
+
+    /**
+     * The contact detail a customer is looked up by.
+     */
+    public enum Field {
+        EMAIL, PHONE
+    }
+
+    private final Field field;
+    private final String value;
+
+    /**
+     * Constructs a <code>FindCustomer</code> command.
+     *
+     * @param field whether <code>value</code> is an email address or a phone number
+     * @param value the email address or phone number to look up
+     */
+    public FindCustomer(Field field, String value) {
+        this.field = field;
+        this.value = value;
+    }
+
+    /**
+     * Executes the lookup, printing the matching customer's details.
+     *
+     * @param fbs the flight booking system to search
+     * @throws FlightBookingSystemException if no active customer matches
+     */
+    @Override
+    public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
+        Customer customer = field == Field.EMAIL
+            ? fbs.findCustomerByEmail(value)
+            : fbs.findCustomerByPhone(value);
+        if (customer == null) {
+            throw new FlightBookingSystemException(
+                "No customer found with " + field.name().toLowerCase() + " " + value + ".");
+        }
+        System.out.println(customer.getDetailsShort());
+    }
+}
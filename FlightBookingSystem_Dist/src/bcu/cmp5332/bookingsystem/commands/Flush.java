@@ -0,0 +1,31 @@
+package bcu.cmp5332.bookingsystem.commands;
+
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.IOException;
+
+/**
+ * A command that waits until every change made so far has been written to disk.
+ * Changes are persisted in the background, so this is how a user makes sure
+ * nothing is lost before, for example, switching the machine off.
+ */
+public class Flush implements Command {
+
+    /**
+     * Drains the journal and forces any files still waiting to be synced.
+     *
+     * @param fbs the flight booking system (unused)
+     * @throws FlightBookingSystemException if pending changes cannot be written
+     */
+    @Override
+    public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
+        try {
+            FlightBookingSystemData.flush();
+        } catch (IOException ex) {
+            throw new FlightBookingSystemException("Failed to flush changes.\n" + ex.getMessage());
+        }
+        System.out.println("All changes have been written to disk.");
+    }
+}
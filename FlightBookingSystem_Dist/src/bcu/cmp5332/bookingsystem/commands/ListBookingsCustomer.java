@@ -5,7 +5,7 @@ import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
-import java.util.List;
+import java.util.Collection;
 
 /**
  * A command that lists all bookings for a specific customer, identified by their customer ID.
@@ -39,7 +39,7 @@ public class ListBookingsCustomer implements Command {
         }
 
         System.out.println("=== Bookings for Customer #" + customerId + " (" + customer.getName() + ") ===");
-        List<Booking> bookings = customer.getBookings();
+        Collection<Booking> bookings = customer.getBookings();
         if (bookings.isEmpty()) {
             System.out.println("No bookings found for this customer.");
             return;
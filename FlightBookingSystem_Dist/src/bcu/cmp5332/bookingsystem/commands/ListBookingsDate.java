@@ -6,7 +6,6 @@ import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * A command that lists all bookings made on a specific date.
@@ -33,10 +32,7 @@ public class ListBookingsDate implements Command {
     @Override
     public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
         System.out.println("=== Bookings on " + date + " ===");
-        List<Booking> all = fbs.getAllBookings();
-        List<Booking> filtered = all.stream()
-            .filter(b -> b.getBookingDate().equals(date))
-            .collect(Collectors.toList());
+        List<Booking> filtered = fbs.getBookingsOn(date);
 
         if (filtered.isEmpty()) {
             System.out.println("No bookings found on this date.");
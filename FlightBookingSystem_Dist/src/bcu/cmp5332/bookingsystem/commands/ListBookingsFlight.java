@@ -4,9 +4,8 @@ import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.SeatType;
 
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * A command that lists all bookings for a specific flight, identified by flightId.
@@ -24,7 +23,8 @@ public class ListBookingsFlight implements Command {
     }
 
     /**
-     * Executes the listing of all bookings associated with the given flight ID.
+     * Executes the listing of all bookings associated with the given flight ID,
+     * grouped by seat class. Only the flight's own bookings are visited.
      * Prints each booking and the total count.
      *
      * @param fbs the flight booking system to search in
@@ -41,19 +41,21 @@ public class ListBookingsFlight implements Command {
         }
 
         System.out.println("=== Bookings for Flight #" + flightId + " (" + flight.getFlightNumber() + ") ===");
-        List<Booking> all = fbs.getAllBookings();
-        List<Booking> filtered = all.stream()
-            .filter(b -> b.getFlight().getId() == flightId)
-            .collect(Collectors.toList());
+        int count = 0;
+        for (SeatType seatType : SeatType.values()) {
+            for (Booking b : flight.getBookings(seatType)) {
+                if (!b.getCustomer().isDeleted()) {
+                    System.out.println(formatBooking(b));
+                    count++;
+                }
+            }
+        }
 
-        if (filtered.isEmpty()) {
+        if (count == 0) {
             System.out.println("No bookings found for this flight.");
             return;
         }
-        for (Booking b : filtered) {
-            System.out.println(formatBooking(b));
-        }
-        System.out.println(filtered.size() + " booking(s) found for this flight.");
+        System.out.println(count + " booking(s) found for this flight.");
     }
 
     /**
@@ -65,6 +67,7 @@ public class ListBookingsFlight implements Command {
     private String formatBooking(Booking b) {
         return "Booking #" + b.getBookingId() + " | Customer #" + b.getCustomer().getId()
                + " (" + b.getCustomer().getName() + ")"
+               + " | Seat: " + b.getSeatType()
                + " | Booked On: " + b.getBookingDate();
     }
 }
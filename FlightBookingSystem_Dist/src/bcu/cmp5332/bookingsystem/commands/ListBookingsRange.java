@@ -0,0 +1,71 @@
+package bcu.cmp5332.bookingsystem.commands;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A command that lists all bookings made between two dates (inclusive),
+ * e.g. for daily or weekly sales windows.
+ */
+public class ListBookingsRange implements Command {
+    private final LocalDate from;
+    private final LocalDate to;
+
+    /**
+     * Constructs a <code>ListBookingsRange</code> command for the given dates.
+     *
+     * @param from the first booking date to include
+     * @param to   the last booking date to include
+     */
+    public ListBookingsRange(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Executes the listing of bookings made in the range, in date order,
+     * printing each booking, the count and the total taken.
+     *
+     * @param fbs the flight booking system
+     * @throws FlightBookingSystemException if the start date is after the end date
+     */
+    @Override
+    public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
+        List<Booking> bookings;
+        try {
+            bookings = fbs.getBookingsBetween(from, to);
+        } catch (IllegalArgumentException ex) {
+            throw new FlightBookingSystemException(ex.getMessage());
+        }
+
+        System.out.println("=== Bookings from " + from + " to " + to + " ===");
+        if (bookings.isEmpty()) {
+            System.out.println("No bookings found in this range.");
+            return;
+        }
+        double total = 0.0;
+        for (Booking b : bookings) {
+            System.out.println(formatBooking(b));
+            total += b.getBookingPrice() + b.getFee();
+        }
+        System.out.println(bookings.size() + " booking(s) found, totalling $" + String.format("%.2f", total) + ".");
+    }
+
+    /**
+     * Helper method to format a single booking entry for display.
+     *
+     * @param b the booking to format
+     * @return a string describing the booking
+     */
+    private String formatBooking(Booking b) {
+        return "Booking #" + b.getBookingId()
+               + " | " + b.getBookingDate()
+               + " | Customer #" + b.getCustomer().getId() + " (" + b.getCustomer().getName() + ")"
+               + " | Flight #" + b.getFlight().getId() + " (" + b.getFlight().getFlightNumber() + ")"
+               + " | $" + String.format("%.2f", b.getBookingPrice() + b.getFee());
+    }
+}
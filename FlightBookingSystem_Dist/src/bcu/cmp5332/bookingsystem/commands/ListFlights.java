@@ -7,20 +7,21 @@ import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 import java.util.List;
 
 /**
- * A command that lists all active (non-deleted) flights in the system.
+ * A command that lists all upcoming active (non-deleted) flights in the system,
+ * i.e. those departing after the system date.
  */
 public class ListFlights implements Command {
 
     /**
-     * Executes the listing of flights, printing each flight's short details
-     * (e.g. flight number, origin, destination, etc.).
+     * Executes the listing of upcoming flights in departure date order, printing
+     * each flight's short details (e.g. flight number, origin, destination, etc.).
      *
      * @param flightBookingSystem the system from which to retrieve flights
      * @throws FlightBookingSystemException not thrown here
      */
     @Override
     public void execute(FlightBookingSystem flightBookingSystem) throws FlightBookingSystemException {
-        List<Flight> flights = flightBookingSystem.getFlights();
+        List<Flight> flights = flightBookingSystem.getUpcomingFlights();
         for (Flight flight : flights) {
             System.out.println(flight.getDetailsShort());
         }
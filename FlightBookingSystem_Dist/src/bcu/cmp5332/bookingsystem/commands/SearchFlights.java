@@ -0,0 +1,57 @@
+package bcu.cmp5332.bookingsystem.commands;
+
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A command that searches the active flights by origin, destination and
+ * departure date range, using the same search as the GUI.
+ */
+public class SearchFlights implements Command {
+    private final String origin;
+    private final String destination;
+    private final LocalDate from;
+    private final LocalDate to;
+
+    /**
+     * Constructs a <code>SearchFlights</code> command. Any criterion may be null
+     * to match every flight.
+     *
+     * @param origin      the origin to match, or null for any
+     * @param destination the destination to match, or null for any
+     * @param from        the earliest departure date, or null for no limit
+     * @param to          the latest departure date, or null for no limit
+     */
+    public SearchFlights(String origin, String destination, LocalDate from, LocalDate to) {
+        this.origin = origin;
+        this.destination = destination;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Executes the search, printing each matching flight in departure date order
+     * and the number found.
+     *
+     * @param fbs the flight booking system to search
+     * @throws FlightBookingSystemException if the start date is after the end date
+     */
+    @Override
+    public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
+        List<Flight> flights;
+        try {
+            flights = fbs.searchFlights(origin, destination, from, to);
+        } catch (IllegalArgumentException ex) {
+            throw new FlightBookingSystemException(ex.getMessage());
+        }
+
+        for (Flight flight : flights) {
+            System.out.println(flight.getDetailsShort());
+        }
+        System.out.println(flights.size() + " flight(s) found.");
+    }
+}
@@ -51,9 +51,9 @@ public class ShowFlight implements Command {
         System.out.println("Is Deleted? " + (flight.isDeleted() ? "Yes" : "No"));
 
         // Print passenger list
-        if (!flight.getPassengers().isEmpty()) {
+        if (flight.getPassengerCount() > 0) {
             System.out.println("Passengers:");
-            flight.getPassengers().forEach(cust ->
+            fbs.getPassengers(flight).forEach(cust ->
                 System.out.println(" - Customer " + cust.getId() + ": " + cust.getName())
             );
         } else {
@@ -0,0 +1,33 @@
+package bcu.cmp5332.bookingsystem.commands;
+
+import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
+import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.IOException;
+
+/**
+ * A command that writes the whole system to the binary snapshot file,
+ * which is loaded instead of the text files on the next start-up.
+ */
+public class StoreSnapshot implements Command {
+
+    /**
+     * Writes the binary snapshot and reports how many records it contains.
+     *
+     * @param fbs the flight booking system to save
+     * @throws FlightBookingSystemException if the snapshot cannot be written
+     */
+    @Override
+    public void execute(FlightBookingSystem fbs) throws FlightBookingSystemException {
+        try {
+            FlightBookingSystemData.storeSnapshot(fbs);
+        } catch (IOException ex) {
+            throw new FlightBookingSystemException("Failed to write snapshot.\n" + ex.getMessage());
+        }
+
+        System.out.println("Snapshot written: " + fbs.getAllFlights().size() + " flight(s), "
+            + fbs.getAllCustomers().size() + " customer(s), "
+            + fbs.getAllBookings().size() + " booking(s).");
+    }
+}
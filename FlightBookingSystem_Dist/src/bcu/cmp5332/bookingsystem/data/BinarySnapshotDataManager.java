@@ -0,0 +1,323 @@
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.model.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads and stores the whole system as a single binary snapshot file, which is
+ * much faster to load than the three text files.
+ * <p>
+ * Layout (version 1, big-endian):
+ * <ul>
+ *   <li>header: magic <code>"FBSS"</code>, format version</li>
+ *   <li>string dictionary: count, then each string as a byte length and UTF-8 bytes.
+ *       Flight numbers, airports and customer details are stored once here and
+ *       referenced by index from the records.</li>
+ *   <li>flights: count, then fixed-width records (id, flight number, origin,
+ *       destination, departure epoch-day, econ/biz/first seats, base price, deleted)</li>
+ *   <li>customers: count, then fixed-width records (id, name, phone, email, deleted)</li>
+ *   <li>bookings: count, then fixed-width records (booking id, customer id, flight id,
+ *       booking epoch-day, seat type, food option, price, fee)</li>
+ * </ul>
+ * The file is read in large chunks into a direct buffer, and the fixed-width
+ * records are decoded straight from it without any text parsing. Reading through
+ * the channel rather than mapping the file works for snapshots of any size and
+ * leaves no mapping behind to stop the file being replaced.
+ */
+public class BinarySnapshotDataManager implements DataManager {
+    private static final String FILE_NAME = "resources/data/snapshot.bin";
+    private static final int MAGIC = 0x46425353; // "FBSS"
+    private static final int VERSION = 1;
+
+    private static final int FLIGHT_RECORD_SIZE = 8 * 4 + 8 + 1;
+    private static final int CUSTOMER_RECORD_SIZE = 4 * 4 + 1;
+    private static final int BOOKING_RECORD_SIZE = 4 * 4 + 2 + 8 + 8;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private static final SeatType[] SEAT_TYPES = SeatType.values();
+    private static final FoodOption[] FOOD_OPTIONS = FoodOption.values();
+
+    private final String fileName;
+
+    /**
+     * Creates a manager for <code>snapshot.bin</code> in the data directory.
+     */
+    public BinarySnapshotDataManager() {
+        this(FILE_NAME);
+    }
+
+    /**
+     * Creates a manager for a snapshot kept in another file.
+     *
+     * @param fileName the path of the snapshot file
+     */
+    public BinarySnapshotDataManager(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Checks whether a binary snapshot has been written.
+     *
+     * @return true if the snapshot file exists
+     */
+    public boolean exists() {
+        return getFile().exists();
+    }
+
+    /**
+     * Loads flights, customers and bookings from <code>snapshot.bin</code>,
+     * linking each booking to its customer and flight.
+     *
+     * @param fbs the flight booking system to populate
+     * @throws IOException if the file cannot be read or is not a supported snapshot
+     */
+    @Override
+    public void loadData(FlightBookingSystem fbs) throws IOException {
+        File file = getFile();
+        if (!file.exists()) return;
+
+        try (SnapshotReader in = new SnapshotReader(fileName,
+                FileChannel.open(file.toPath(), StandardOpenOption.READ))) {
+            ByteBuffer buf = in.require(8);
+            if (buf.getInt() != MAGIC) {
+                throw new IOException(fileName + " is not a flight booking snapshot");
+            }
+            int version = buf.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + fileName);
+            }
+
+            String[] strings = new String[in.require(4).getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = in.require(4).getInt();
+                byte[] bytes = new byte[length];
+                in.require(length).get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int flightCount = in.require(4).getInt();
+            for (int i = 0; i < flightCount; i++) {
+                buf = in.require(FLIGHT_RECORD_SIZE);
+                int pos = buf.position();
+                fbs.addFlight(new Flight(
+                    buf.getInt(pos),
+                    strings[buf.getInt(pos + 4)],
+                    strings[buf.getInt(pos + 8)],
+                    strings[buf.getInt(pos + 12)],
+                    LocalDate.ofEpochDay(buf.getInt(pos + 16)),
+                    buf.getInt(pos + 20),
+                    buf.getInt(pos + 24),
+                    buf.getInt(pos + 28),
+                    buf.getDouble(pos + 32),
+                    buf.get(pos + 40) != 0
+                ));
+                buf.position(pos + FLIGHT_RECORD_SIZE);
+            }
+
+            int customerCount = in.require(4).getInt();
+            for (int i = 0; i < customerCount; i++) {
+                buf = in.require(CUSTOMER_RECORD_SIZE);
+                int pos = buf.position();
+                fbs.addCustomer(new Customer(
+                    buf.getInt(pos),
+                    strings[buf.getInt(pos + 4)],
+                    strings[buf.getInt(pos + 8)],
+                    strings[buf.getInt(pos + 12)],
+                    buf.get(pos + 16) != 0
+                ));
+                buf.position(pos + CUSTOMER_RECORD_SIZE);
+            }
+
+            int bookingCount = in.require(4).getInt();
+            for (int i = 0; i < bookingCount; i++) {
+                buf = in.require(BOOKING_RECORD_SIZE);
+                int pos = buf.position();
+                Customer customer = fbs.getCustomerById(buf.getInt(pos + 4));
+                Flight flight = fbs.getFlightById(buf.getInt(pos + 8));
+
+                Booking booking = new Booking(buf.getInt(pos), customer, flight,
+                    LocalDate.ofEpochDay(buf.getInt(pos + 12)));
+                booking.setSeatType(SEAT_TYPES[buf.get(pos + 16)]);
+                booking.setFoodOption(FOOD_OPTIONS[buf.get(pos + 17)]);
+                booking.setBookingPrice(buf.getDouble(pos + 18));
+                booking.setFee(buf.getDouble(pos + 26));
+                buf.position(pos + BOOKING_RECORD_SIZE);
+
+                fbs.addBooking(booking);
+                flight.linkPassenger(customer, booking.getSeatType());
+            }
+        } catch (IndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException
+                | DateTimeException ex) {
+            // Out-of-range indexes and counts, or records the system refuses
+            throw new IOException(fileName + " is corrupt");
+        }
+    }
+
+    /**
+     * The snapshot holds every entity set, so it is dirty whenever anything has changed.
+     *
+     * @param fbs the flight booking system whose data would be saved
+     * @return true if <code>snapshot.bin</code> needs to be rewritten
+     */
+    @Override
+    public boolean isDirty(FlightBookingSystem fbs) {
+        return fbs.isDirty();
+    }
+
+    /**
+     * Returns <code>snapshot.bin</code>.
+     *
+     * @return the live snapshot file
+     */
+    @Override
+    public File getFile() {
+        return new File(fileName);
+    }
+
+    /**
+     * Writes every flight, customer and booking in the <code>snapshot.bin</code> format.
+     *
+     * @param fbs    the flight booking system to save
+     * @param stream the stream to write the file to
+     * @throws IOException if writing the file fails
+     */
+    @Override
+    public void storeData(FlightBookingSystem fbs, OutputStream stream) throws IOException {
+        List<Flight> flights = fbs.getAllFlights();
+        List<Customer> customers = fbs.getAllCustomers();
+
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Flight flight : flights) {
+            intern(dictionary, flight.getFlightNumber());
+            intern(dictionary, flight.getOrigin());
+            intern(dictionary, flight.getDestination());
+        }
+        for (Customer customer : customers) {
+            intern(dictionary, customer.getName());
+            intern(dictionary, customer.getPhone());
+            intern(dictionary, customer.getEmail());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(dictionary.size());
+            for (String value : dictionary.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(flights.size());
+            for (Flight flight : flights) {
+                out.writeInt(flight.getId());
+                out.writeInt(dictionary.get(flight.getFlightNumber()));
+                out.writeInt(dictionary.get(flight.getOrigin()));
+                out.writeInt(dictionary.get(flight.getDestination()));
+                out.writeInt((int) flight.getDepartureDate().toEpochDay());
+                out.writeInt(flight.getEconCapacity());
+                out.writeInt(flight.getBusinessCapacity());
+                out.writeInt(flight.getFirstCapacity());
+                out.writeDouble(flight.getBasePrice());
+                out.writeBoolean(flight.isDeleted());
+            }
+
+            out.writeInt(customers.size());
+            for (Customer customer : customers) {
+                out.writeInt(customer.getId());
+                out.writeInt(dictionary.get(customer.getName()));
+                out.writeInt(dictionary.get(customer.getPhone()));
+                out.writeInt(dictionary.get(customer.getEmail()));
+                out.writeBoolean(customer.isDeleted());
+            }
+
+            int bookingCount = 0;
+            for (Customer customer : customers) {
+                bookingCount += customer.getBookings().size();
+            }
+            out.writeInt(bookingCount);
+            for (Customer customer : customers) {
+                for (Booking b : customer.getBookings()) {
+                    out.writeInt(b.getBookingId());
+                    out.writeInt(customer.getId());
+                    out.writeInt(b.getFlight().getId());
+                    out.writeInt((int) b.getBookingDate().toEpochDay());
+                    out.writeByte(b.getSeatType().ordinal());
+                    out.writeByte(b.getFoodOption().ordinal());
+                    out.writeDouble(b.getBookingPrice());
+                    out.writeDouble(b.getFee());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a string to the dictionary if it is not already present.
+     */
+    private static void intern(Map<String, Integer> dictionary, String value) {
+        if (!dictionary.containsKey(value)) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    /**
+     * Reads the snapshot from a channel a chunk at a time.
+     */
+    private static final class SnapshotReader implements Closeable {
+        private final String fileName;
+        private final FileChannel channel;
+        private ByteBuffer buf = ByteBuffer.allocateDirect(CHUNK_SIZE);
+
+        SnapshotReader(String fileName, FileChannel channel) {
+            this.fileName = fileName;
+            this.channel = channel;
+            buf.limit(0);
+        }
+
+        /**
+         * Makes sure the next <code>bytes</code> bytes of the file are in the
+         * buffer, reading more and growing it as needed.
+         *
+         * @return the buffer, positioned at those bytes
+         * @throws IOException if the file ends first
+         */
+        ByteBuffer require(int bytes) throws IOException {
+            if (bytes < 0) {
+                throw new IOException(fileName + " is corrupt");
+            }
+            if (buf.remaining() >= bytes) {
+                return buf;
+            }
+            buf.compact();
+            if (buf.capacity() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocateDirect(bytes);
+                buf.flip();
+                bigger.put(buf);
+                buf = bigger;
+            }
+            while (buf.position() < bytes) {
+                if (channel.read(buf) < 0) {
+                    throw new IOException(fileName + " is truncated");
+                }
+            }
+            buf.flip();
+            return buf;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
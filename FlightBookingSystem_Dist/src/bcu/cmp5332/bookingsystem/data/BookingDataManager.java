@@ -2,8 +2,16 @@ package bcu.cmp5332.bookingsystem.data;
 
 import bcu.cmp5332.bookingsystem.model.*;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Manages loading and storing booking data to/from a text file,
@@ -13,6 +21,29 @@ public class BookingDataManager implements DataManager {
 
     private static final String FILE_NAME = "resources/data/bookings.txt";
     private static final String SEPARATOR = "::";
+    private static final SeatType[] SEAT_TYPES = SeatType.values();
+    private static final FoodOption[] FOOD_OPTIONS = FoodOption.values();
+
+    // Byte ranges larger than this are split in two and parsed in parallel.
+    private static final int SPLIT_THRESHOLD = 1 << 20;
+
+    private final String fileName;
+
+    /**
+     * Creates a manager for <code>bookings.txt</code> in the data directory.
+     */
+    public BookingDataManager() {
+        this(FILE_NAME);
+    }
+
+    /**
+     * Creates a manager for bookings kept in another file.
+     *
+     * @param fileName the path of the bookings file
+     */
+    public BookingDataManager(String fileName) {
+        this.fileName = fileName;
+    }
 
     /**
      * Loads booking data from <code>bookings.txt</code>, including seat type,
@@ -24,55 +55,91 @@ public class BookingDataManager implements DataManager {
      */
     @Override
     public void loadData(FlightBookingSystem fbs) throws IOException {
-        File file = new File(FILE_NAME);
-        if (!file.exists()) return;
-
-        try (Scanner scanner = new Scanner(new FileReader(file))) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] data = line.split(SEPARATOR);
-                // Data: customerId, flightId, bookingDate, bookingId,
-                //       seatType, foodOption, bookingPrice, fee
-                int custId = Integer.parseInt(data[0]);
-                int fltId = Integer.parseInt(data[1]);
-                LocalDate bookingDate = LocalDate.parse(data[2]);
-                int bookingId = Integer.parseInt(data[3]);
-                SeatType seatType = SeatType.valueOf(data[4]);
-                FoodOption foodOpt = FoodOption.valueOf(data[5]);
-                double bookingPrice = Double.parseDouble(data[6]);
-                double fee = Double.parseDouble(data[7]);
-
-                Customer customer = fbs.getCustomerById(custId);
-                Flight flight = fbs.getFlightById(fltId);
-
-                Booking booking = new Booking(customer, flight, bookingDate);
-                // If needed, we could forcibly set bookingId, but typically the
-                // booking object auto-assigns a new ID. For advanced usage, you might
-                // store it if you want to ensure IDs match the file. 
-                //
-                booking.setSeatType(seatType);
-                booking.setFoodOption(foodOpt);
-                booking.setBookingPrice(bookingPrice);
-                booking.setFee(fee);
-
-                // Add to the customer’s list
-                customer.addBooking(booking);
-                // Also add passenger to the flight, specifying seat type if your flight logic allows it
-                flight.addPassenger(customer, seatType);
-            }
+        link(fbs, readBookings(ForkJoinPool.commonPool()));
+    }
+
+    /**
+     * Parses <code>bookings.txt</code> into unlinked records. The file is split
+     * into byte ranges at line boundaries, and the ranges are read through the
+     * shared channel with positional reads and parsed in parallel on the given
+     * pool. Nothing is mapped, so files of any size can be read and none is left
+     * mapped when the next store replaces it. The records are returned in file order.
+     *
+     * @param pool the fork-join pool to parse on
+     * @return the parsed booking records
+     * @throws IOException if reading the file fails or a record is malformed
+     */
+    public List<BookingRecord> readBookings(ForkJoinPool pool) throws IOException {
+        File file = getFile();
+        if (!file.exists()) return new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return pool.invoke(new ParseTask(fileName, channel, 0, channel.size()));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Creates the <code>Booking</code> objects for parsed records and attaches
+     * them to their <code>Customer</code> and <code>Flight</code>. This runs on a
+     * single thread, after all flights and customers have been added.
+     *
+     * @param fbs     the flight booking system holding the flights and customers
+     * @param records the records returned by {@link #readBookings}
+     * @throws IllegalArgumentException if a record refers to an unknown customer or flight
+     */
+    public void link(FlightBookingSystem fbs, List<BookingRecord> records) {
+        for (BookingRecord record : records) {
+            Customer customer = fbs.getCustomerById(record.customerId);
+            Flight flight = fbs.getFlightById(record.flightId);
+
+            // Keep the stored ID so journal entries and edits keep referring to the same booking
+            Booking booking = new Booking(record.bookingId, customer, flight, record.bookingDate);
+            booking.setSeatType(record.seatType);
+            booking.setFoodOption(record.foodOption);
+            booking.setBookingPrice(record.bookingPrice);
+            booking.setFee(record.fee);
+
+            // Add to the customer’s list and the booking index
+            fbs.addBooking(booking);
+            // Also add passenger to the flight; the stored capacities already account for this seat
+            flight.linkPassenger(customer, record.seatType);
         }
     }
 
+    /**
+     * Bookings are dirty when one is issued, cancelled or edited.
+     *
+     * @param fbs the flight booking system whose data would be saved
+     * @return true if <code>bookings.txt</code> needs to be rewritten
+     */
+    @Override
+    public boolean isDirty(FlightBookingSystem fbs) {
+        return fbs.isDirty(EntityType.BOOKING);
+    }
+
+    /**
+     * Returns <code>bookings.txt</code>.
+     *
+     * @return the live data file
+     */
+    @Override
+    public File getFile() {
+        return new File(fileName);
+    }
+
     /**
      * Stores booking data (including seat type, food option, booking price, and fee)
-     * to <code>bookings.txt</code> for each active customer.
+     * in the <code>bookings.txt</code> format for each active customer.
      *
      * @param fbs the flight booking system to retrieve booking info from
+     * @param out the stream to write the file to
      * @throws IOException if writing the file fails
      */
     @Override
-    public void storeData(FlightBookingSystem fbs) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FILE_NAME))) {
+    public void storeData(FlightBookingSystem fbs, OutputStream out) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
             for (Customer customer : fbs.getAllCustomers()) {
                 for (Booking b : customer.getBookings()) {
                     writer.println(
@@ -87,6 +154,161 @@ public class BookingDataManager implements DataManager {
                     );
                 }
             }
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + getFile());
+            }
+        }
+    }
+
+    /**
+     * One parsed line of <code>bookings.txt</code>, not yet linked to its
+     * customer and flight.
+     */
+    public static class BookingRecord {
+        private final int customerId;
+        private final int flightId;
+        private final LocalDate bookingDate;
+        private final int bookingId;
+        private final SeatType seatType;
+        private final FoodOption foodOption;
+        private final double bookingPrice;
+        private final double fee;
+
+        private BookingRecord(RecordReader reader) throws IOException {
+            // Data: customerId, flightId, bookingDate, bookingId,
+            //       seatType, foodOption, bookingPrice, fee
+            this.customerId = reader.nextInt();
+            this.flightId = reader.nextInt();
+            this.bookingDate = reader.nextDate();
+            this.bookingId = reader.nextInt();
+            this.seatType = reader.nextEnum(SEAT_TYPES);
+            this.foodOption = reader.nextEnum(FOOD_OPTIONS);
+            this.bookingPrice = reader.nextDouble();
+            this.fee = reader.nextDouble();
+        }
+
+        /**
+         * Returns the ID of the booking this record describes.
+         *
+         * @return the booking ID
+         */
+        public int getBookingId() {
+            return bookingId;
+        }
+    }
+
+    /**
+     * Parses a byte range of the file, splitting it in two at a line boundary
+     * while it is larger than <code>SPLIT_THRESHOLD</code>.
+     */
+    private static class ParseTask extends RecursiveTask<List<BookingRecord>> {
+        private static final long serialVersionUID = 1L;
+
+        private final String fileName;
+        private final FileChannel file;
+        private final long start;
+        private final long end;
+
+        ParseTask(String fileName, FileChannel file, long start, long end) {
+            this.fileName = fileName;
+            this.file = file;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<BookingRecord> compute() {
+            try {
+                if (end - start > SPLIT_THRESHOLD) {
+                    long middle = lineStartAfter(start + (end - start) / 2);
+                    if (middle < end) {
+                        ParseTask left = new ParseTask(fileName, file, start, middle);
+                        ParseTask right = new ParseTask(fileName, file, middle, end);
+                        left.fork();
+                        List<BookingRecord> records = right.compute();
+                        List<BookingRecord> merged = left.join();
+                        merged.addAll(records);
+                        return merged;
+                    }
+                }
+
+                List<BookingRecord> records = new ArrayList<>();
+                try (RecordReader reader = new RecordReader(fileName, new RangeChannel(file, start, end))) {
+                    while (reader.nextRecord()) {
+                        records.add(new BookingRecord(reader));
+                    }
+                }
+                return records;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        /**
+         * Returns the index just past the first newline at or after <code>index</code>.
+         */
+        private long lineStartAfter(long index) throws IOException {
+            ByteBuffer window = ByteBuffer.allocate(4096);
+            while (index < end) {
+                window.clear();
+                window.limit((int) Math.min(window.capacity(), end - index));
+                int read = file.read(window, index);
+                if (read <= 0) {
+                    return end;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        return Math.min(index + i + 1, end);
+                    }
+                }
+                index += read;
+            }
+            return end;
+        }
+    }
+
+    /**
+     * Reads one byte range of a shared file channel with positional reads, so
+     * ranges can be read on several threads at once. Closing it leaves the
+     * shared channel open.
+     */
+    private static class RangeChannel implements ReadableByteChannel {
+        private final FileChannel file;
+        private long position;
+        private final long end;
+
+        RangeChannel(FileChannel file, long start, long end) {
+            this.file = file;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = dst.limit();
+            dst.limit((int) Math.min(limit, dst.position() + (end - position)));
+            try {
+                int read = file.read(dst, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return file.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // The channel is shared with the other ranges
         }
     }
 }
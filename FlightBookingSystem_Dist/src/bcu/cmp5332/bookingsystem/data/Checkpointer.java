@@ -0,0 +1,173 @@
+package bcu.cmp5332.bookingsystem.data;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when the journal has grown enough to be worth a checkpoint, and runs
+ * checkpoints and full stores on one background thread, one at a time, so no
+ * two generations are ever written at once.
+ * <p>
+ * A checkpoint is due once the journal reaches the configured size, or once the
+ * configured interval has passed since the last checkpoint and the journal is not
+ * empty. Either limit can be disabled by setting it to 0. Together they bound how
+ * much a restart has to replay, however long the process has been running. The
+ * size is checked on every append; the interval is also checked on the
+ * background thread whenever it comes round, so a system that has gone idle
+ * still takes its checkpoint on time.
+ * <p>
+ * Every method is thread-safe, so commands on different threads may ask for
+ * checkpoints concurrently; at most one is queued or running at a time.
+ */
+public class Checkpointer {
+    private final long maxJournalBytes;
+    private final long intervalNanos;
+
+    // Guarded by this.
+    private ScheduledExecutorService worker;
+    private Future<?> running;
+    private long lastCheckpoint = System.nanoTime();
+    private boolean intervalChecked;
+
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    /**
+     * Creates a checkpoint scheduler.
+     *
+     * @param maxJournalBytes the journal size that triggers a checkpoint, or 0 for no limit
+     * @param intervalMillis  the time between checkpoints, or 0 for no limit
+     */
+    public Checkpointer(long maxJournalBytes, long intervalMillis) {
+        this.maxJournalBytes = maxJournalBytes;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * Starts a checkpoint on the background thread if one is due and none is
+     * already queued or running. A failure is logged and remembered until
+     * {@link #clearFailure()} reports it.
+     *
+     * @param journalBytes the current size of the journal
+     * @param task         writes the checkpoint and discards the journal it covers
+     * @return true if the checkpoint was started
+     */
+    public synchronized boolean startIfDue(long journalBytes, Task task) {
+        if (!isDue(journalBytes)) {
+            return false;
+        }
+        lastCheckpoint = System.nanoTime();
+        running = worker().submit(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException ex) {
+                failed.set(true);
+                System.err.println("Checkpoint failed: " + ex.getMessage());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Checks on the background thread, each time the interval has passed since
+     * the last checkpoint, whether one is due, and starts it as
+     * {@link #startIfDue} would. Does nothing if the interval is disabled or
+     * the checks have already been scheduled.
+     *
+     * @param journalBytes returns the current size of the journal
+     * @param task         writes the checkpoint and discards the journal it covers
+     */
+    public synchronized void scheduleIntervalChecks(LongSupplier journalBytes, Task task) {
+        if (intervalNanos <= 0 || intervalChecked) {
+            return;
+        }
+        intervalChecked = true;
+        scheduleIntervalCheck(journalBytes, task, intervalNanos);
+    }
+
+    private synchronized void scheduleIntervalCheck(LongSupplier journalBytes, Task task, long delayNanos) {
+        worker().schedule(() -> {
+            startIfDue(journalBytes.getAsLong(), task);
+            long untilDue;
+            synchronized (this) {
+                untilDue = lastCheckpoint + intervalNanos - System.nanoTime();
+            }
+            // Not yet due only if the journal was empty; an append will start it once it is not
+            scheduleIntervalCheck(journalBytes, task, untilDue > 0 ? untilDue : intervalNanos);
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean isDue(long journalBytes) {
+        if (journalBytes == 0 || (running != null && !running.isDone())) {
+            return false;
+        }
+        if (maxJournalBytes > 0 && journalBytes >= maxJournalBytes) {
+            return true;
+        }
+        return intervalNanos > 0 && System.nanoTime() - lastCheckpoint >= intervalNanos;
+    }
+
+    /**
+     * Runs a task on the background thread after any checkpoint already queued,
+     * and waits for it. The caller must not hold anything the task waits for.
+     *
+     * @param task the work to run, e.g. a full store
+     * @throws IOException if the task fails, or if interrupted while waiting
+     */
+    public void run(Task task) throws IOException {
+        Future<?> result;
+        synchronized (this) {
+            result = worker().submit(() -> {
+                task.run();
+                return null;
+            });
+        }
+        try {
+            result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a store", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Reports and forgets a checkpoint failure, without waiting.
+     *
+     * @return true if a checkpoint has failed since the last time a failure was reported
+     */
+    public boolean clearFailure() {
+        return failed.getAndSet(false);
+    }
+
+    private ScheduledExecutorService worker() {
+        if (worker == null) {
+            worker = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "checkpointer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return worker;
+    }
+
+    /**
+     * The work of one checkpoint or store, run on the background thread.
+     */
+    public interface Task {
+        void run() throws IOException;
+    }
+}
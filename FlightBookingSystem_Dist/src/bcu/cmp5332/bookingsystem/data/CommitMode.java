@@ -0,0 +1,24 @@
+package bcu.cmp5332.bookingsystem.data;
+
+/**
+ * An enumeration of the ways journaled mutations can be made durable,
+ * trading command latency against the risk of losing recent changes.
+ */
+public enum CommitMode {
+    /**
+     * Every mutation is written and forced to disk before its command completes.
+     */
+    SYNC,
+
+    /**
+     * Mutations arriving within a short window share a single write and force;
+     * each command still waits until its own mutation is durable.
+     */
+    GROUPED,
+
+    /**
+     * Mutations are written and forced in groups in the background; commands
+     * do not wait for them to become durable.
+     */
+    ASYNC
+}
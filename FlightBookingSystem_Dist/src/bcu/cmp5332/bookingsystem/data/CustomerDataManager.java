@@ -1,9 +1,12 @@
 package bcu.cmp5332.bookingsystem.data;
 
 import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.EntityType;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 import java.io.*;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Manages loading and storing customer data to/from a text file.
@@ -25,36 +28,70 @@ public class CustomerDataManager implements DataManager {
      */
     @Override
     public void loadData(FlightBookingSystem fbs) throws IOException {
+        for (Customer customer : readCustomers()) {
+            fbs.addCustomer(customer);
+        }
+    }
+
+    /**
+     * Parses <code>customers.txt</code> without touching any
+     * <code>FlightBookingSystem</code>, so it can run alongside the other loaders.
+     *
+     * @return the stored customers, in file order
+     * @throws IOException if reading from the file fails
+     */
+    public List<Customer> readCustomers() throws IOException {
+        List<Customer> customers = new ArrayList<>();
         File file = new File(FILE_NAME);
-        if (!file.exists()) return;
+        if (!file.exists()) return customers;
 
-        try (Scanner scanner = new Scanner(new FileReader(file))) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] data = line.split(SEPARATOR);
+        try (RecordReader reader = new RecordReader(file)) {
+            while (reader.nextRecord()) {
                 // Data: id, name, phone, email, deleted
-                int id = Integer.parseInt(data[0]);
-                String name = data[1];
-                String phone = data[2];
-                String email = data[3];
-                boolean deleted = Boolean.parseBoolean(data[4]);
+                int id = reader.nextInt();
+                String name = reader.nextString();
+                String phone = reader.nextString();
+                String email = reader.nextString();
+                boolean deleted = reader.nextBoolean();
 
-                Customer customer = new Customer(id, name, phone, email, deleted);
-                fbs.addCustomer(customer);
+                customers.add(new Customer(id, name, phone, email, deleted));
             }
         }
+        return customers;
+    }
+
+    /**
+     * Customers are dirty when one is added or deleted.
+     *
+     * @param fbs the flight booking system whose data would be saved
+     * @return true if <code>customers.txt</code> needs to be rewritten
+     */
+    @Override
+    public boolean isDirty(FlightBookingSystem fbs) {
+        return fbs.isDirty(EntityType.CUSTOMER);
+    }
+
+    /**
+     * Returns <code>customers.txt</code>.
+     *
+     * @return the live data file
+     */
+    @Override
+    public File getFile() {
+        return new File(FILE_NAME);
     }
 
     /**
-     * Stores customer data into <code>customers.txt</code>, including
+     * Stores customer data in the <code>customers.txt</code> format, including
      * whether each customer is soft-deleted.
      *
      * @param fbs the flight booking system from which to retrieve customer data
+     * @param out the stream to write the file to
      * @throws IOException if writing to the file fails
      */
     @Override
-    public void storeData(FlightBookingSystem fbs) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FILE_NAME))) {
+    public void storeData(FlightBookingSystem fbs, OutputStream out) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
             for (Customer customer : fbs.getAllCustomers()) {
                 writer.println(
                     customer.getId() + SEPARATOR +
@@ -64,6 +101,9 @@ public class CustomerDataManager implements DataManager {
                     customer.isDeleted()
                 );
             }
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + getFile());
+            }
         }
     }
 }
@@ -1,7 +1,9 @@
 package bcu.cmp5332.bookingsystem.data;
 
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * A generic interface for loading and storing data related
@@ -23,11 +25,31 @@ public interface DataManager {
     void loadData(FlightBookingSystem fbs) throws IOException;
 
     /**
-     * Stores the current system data (e.g. flights, customers, bookings)
-     * back into the relevant storage (text files).
+     * Writes the current system data (e.g. flights, customers, bookings) to the
+     * given stream. Callers write into a new file, checksumming it as it is
+     * written, and then move it over {@link #getFile()}, so the live file is
+     * never truncated in place. Closing the stream only flushes it; the caller
+     * closes the file once it has been forced.
      *
      * @param fbs the flight booking system whose data will be saved
+     * @param out the stream to write the file's contents to
      * @throws IOException if writing to the file fails
      */
-    void storeData(FlightBookingSystem fbs) throws IOException;
+    void storeData(FlightBookingSystem fbs, OutputStream out) throws IOException;
+
+    /**
+     * Returns the file this manager loads its data from.
+     *
+     * @return the live data file
+     */
+    File getFile();
+
+    /**
+     * Checks whether the data this manager stores has changed since it was
+     * last written, so that unchanged files can be skipped when storing.
+     *
+     * @param fbs the flight booking system whose data would be saved
+     * @return true if {@link #storeData} needs to be called
+     */
+    boolean isDirty(FlightBookingSystem fbs);
 }
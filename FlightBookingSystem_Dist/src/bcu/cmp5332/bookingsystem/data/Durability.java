@@ -0,0 +1,27 @@
+package bcu.cmp5332.bookingsystem.data;
+
+/**
+ * An enumeration of how hard a full store tries to get the data files onto disk
+ * before it completes. Files are always replaced atomically, so a crash never
+ * leaves a torn file in use; a relaxed level only risks falling back to the
+ * previous generation of the data.
+ */
+public enum Durability {
+    /**
+     * Stores never force files; the operating system writes them back when it
+     * chooses, and they are only forced by an explicit flush or at shutdown.
+     */
+    NONE,
+
+    /**
+     * Every new file and the generation marker are forced before they are
+     * renamed into place, so a completed store survives a crash.
+     */
+    ON_COMMIT,
+
+    /**
+     * Stores complete without forcing, and a background thread forces the
+     * files written since its last run once per sync interval.
+     */
+    PERIODIC
+}
@@ -1,121 +1,380 @@
 package bcu.cmp5332.bookingsystem.data;
 
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.EntityType;
+import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.IdAllocator;
+import bcu.cmp5332.bookingsystem.model.Transaction;
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Manages loading and storing the entire <code>FlightBookingSystem</code>
  * by delegating to various <code>DataManager</code> implementations
  * (e.g. FlightDataManager, CustomerDataManager, BookingDataManager).
  * <p>
- * Also supports snapshot/restore functionality for rollback operations.
+ * Individual mutations are appended to a {@link Journal} between full stores,
+ * and the journal is replayed on top of the data files when loading. Once the
+ * journal grows past a size or age limit, a checkpoint writes the changed files
+ * in the background and discards the journal entries they contain.
+ * Commands undo in-memory changes that could not be journaled with a
+ * {@link bcu.cmp5332.bookingsystem.model.Transaction}.
+ * <p>
+ * {@link #append} and {@link #flush} may be called from concurrent sessions;
+ * appends must be made inside a transaction. Checkpoints and {@link #store}
+ * and {@link #storeSnapshot} all run one at a time on the checkpointer thread,
+ * and copy or write the system only once every open transaction has finished,
+ * so they too may be called from any session, but never with a transaction
+ * open on the calling thread. {@link #load} must finish before any other call.
  */
 public class FlightBookingSystemData {
+    private static final FlightDataManager FLIGHTS = new FlightDataManager();
+    private static final CustomerDataManager CUSTOMERS = new CustomerDataManager();
+    private static final BookingDataManager BOOKINGS = new BookingDataManager();
+
     // A list of DataManager objects for flights, customers, bookings, etc.
     private static final List<DataManager> DATA_MANAGERS = Arrays.asList(
-        new FlightDataManager(),
-        new CustomerDataManager(),
-        new BookingDataManager()
+        FLIGHTS,
+        CUSTOMERS,
+        BOOKINGS
+    );
+
+    // The pool the text files are parsed on.
+    private static final ForkJoinPool LOADER_POOL = ForkJoinPool.commonPool();
+
+    // The binary snapshot, used in place of the text files once it has been written.
+    private static final BinarySnapshotDataManager BINARY_SNAPSHOT = new BinarySnapshotDataManager();
+
+    // Commits the data files as consistent generations.
+    private static final GenerationStore GENERATIONS = new GenerationStore(
+        "resources/data/generation.txt",
+        PersistenceConfig.getDurability(),
+        PersistenceConfig.getSyncIntervalMillis()
+    );
+
+    // How journaled mutations are made durable in this deployment.
+    private static final CommitMode COMMIT_MODE = PersistenceConfig.getCommitMode();
+
+    // The journal of mutations made since the last full store.
+    private static final Journal JOURNAL = new Journal(
+        "resources/data/journal.txt",
+        COMMIT_MODE,
+        PersistenceConfig.getGroupWindowMillis(),
+        PersistenceConfig.getGroupMaxRecords(),
+        PersistenceConfig.getQueueCapacity(),
+        PersistenceConfig.getMaxLagMillis()
+    );
+
+    // Records the ID blocks reserved by this and any other process.
+    private static final IdBlockStore IDS = new IdBlockStore("resources/data/ids.txt");
+
+    // Schedules background checkpoints that keep the journal short.
+    private static final Checkpointer CHECKPOINTS = new Checkpointer(
+        PersistenceConfig.getCheckpointJournalBytes(),
+        PersistenceConfig.getCheckpointIntervalMillis()
     );
 
     /**
-     * Loads data into a new <code>FlightBookingSystem</code> instance by calling
-     * each <code>DataManager</code> in <code>DATA_MANAGERS</code>.
+     * Loads data into a new <code>FlightBookingSystem</code> instance, then replays
+     * any mutations journaled since the last full store. If a binary snapshot has
+     * been written it is loaded instead of the text files handled by
+     * <code>DATA_MANAGERS</code>.
+     * <p>
+     * Any store interrupted by a crash is first completed or rolled back, so the
+     * files loaded always come from one consistent generation. A snapshot that
+     * cannot be loaded, for example because it is truncated or corrupt, is moved
+     * aside and the text files, which every snapshot store keeps as up to date,
+     * are loaded instead. New IDs are reserved in blocks recorded next to the
+     * data files from then on, and checkpoints are taken on time from then on,
+     * whether or not commands are being run.
      *
      * @return a populated <code>FlightBookingSystem</code> instance
-     * @throws IOException if any data file cannot be read
+     * @throws IOException if the text files or the journal cannot be read
      */
     public static FlightBookingSystem load() throws IOException {
-        FlightBookingSystem fbs = new FlightBookingSystem();
-        for (DataManager manager : DATA_MANAGERS) {
-            manager.loadData(fbs);
+        FlightBookingSystem fbs = null;
+        if (BINARY_SNAPSHOT.exists()) {
+            try {
+                GENERATIONS.recover(allManagers(), Collections.<DataManager>singletonList(BINARY_SNAPSHOT));
+                fbs = new FlightBookingSystem();
+                BINARY_SNAPSHOT.loadData(fbs);
+            } catch (IOException ex) {
+                File rejected = GENERATIONS.reject(BINARY_SNAPSHOT);
+                System.err.println("Loading the snapshot failed: " + ex.getMessage()
+                    + "; it was moved to " + rejected + " and the text files are loaded instead");
+                fbs = null;
+            }
+        }
+        if (fbs == null) {
+            GENERATIONS.recover(allManagers(), DATA_MANAGERS);
+            fbs = new FlightBookingSystem();
+            loadTextFiles(fbs);
         }
+        IdAllocator.useBlockStore(IDS, PersistenceConfig.getIdBlockSize());
+        JOURNAL.replay(fbs, GENERATIONS.getGeneration());
+        FlightBookingSystem loaded = fbs;
+        CHECKPOINTS.scheduleIntervalChecks(JOURNAL::getSize, () -> checkpoint(loaded));
         return fbs;
     }
 
+    /**
+     * Loads the three text files in parallel. Flights, customers and bookings are
+     * parsed concurrently (bookings in byte-range chunks on <code>LOADER_POOL</code>),
+     * and only once all parsing has finished are the results added to the system
+     * and the bookings linked to their customers and flights, on this thread.
+     */
+    private static void loadTextFiles(FlightBookingSystem fbs) throws IOException {
+        CompletableFuture<List<Flight>> flights = readAsync(FLIGHTS::readFlights);
+        CompletableFuture<List<Customer>> customers = readAsync(CUSTOMERS::readCustomers);
+        CompletableFuture<List<BookingDataManager.BookingRecord>> bookings =
+            readAsync(() -> BOOKINGS.readBookings(LOADER_POOL));
+
+        for (Flight flight : join(flights)) {
+            fbs.addFlight(flight);
+        }
+        for (Customer customer : join(customers)) {
+            fbs.addCustomer(customer);
+        }
+        BOOKINGS.link(fbs, join(bookings));
+    }
+
+    /**
+     * Runs a file reader on <code>LOADER_POOL</code>.
+     */
+    private static <T> CompletableFuture<T> readAsync(Reader<T> reader) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return reader.read();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, LOADER_POOL);
+    }
+
+    /**
+     * Waits for a file reader started by {@link #readAsync}, rethrowing its failure.
+     */
+    private static <T> T join(CompletableFuture<T> result) throws IOException {
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Reads one data file without touching the <code>FlightBookingSystem</code>.
+     */
+    private interface Reader<T> {
+        T read() throws IOException;
+    }
+
     /**
      * Stores all data from the given <code>FlightBookingSystem</code> by calling
-     * each <code>DataManager</code> in <code>DATA_MANAGERS</code>.
+     * each <code>DataManager</code> in <code>DATA_MANAGERS</code>, refreshing the
+     * binary snapshot too if one is in use. Files whose entity set has not
+     * changed since the last store are skipped.
+     * <p>
+     * The changed files are written as one new generation: nothing replaces the
+     * live files until every new file has been written, and they are forced to
+     * disk according to the configured {@link Durability}. The journal written so
+     * far is rotated out first, and discarded once the generation containing it
+     * is durable: straight away under <code>ON_COMMIT</code>, and otherwise after
+     * the next {@link #flush} or periodic sync has forced the files.
+     * <p>
+     * The store waits for any running checkpoint and for every open transaction,
+     * and keeps new transactions waiting until it has finished.
      *
      * @param fbs the flight booking system to save
      * @throws IOException if any data file cannot be written
      */
     public static void store(FlightBookingSystem fbs) throws IOException {
-        for (DataManager manager : DATA_MANAGERS) {
-            manager.storeData(fbs);
-        }
+        runExclusive(fbs, () -> {
+            JOURNAL.flush();
+            List<DataManager> dirty = dirtyManagers(fbs);
+            if (!dirty.isEmpty()) {
+                JOURNAL.rotate(GENERATIONS.getGeneration());
+                GENERATIONS.commit(fbs, dirty);
+            }
+            fbs.clearDirty();
+            JOURNAL.discardCovered(GENERATIONS.getDurableGeneration());
+        });
     }
 
     /**
-     * Creates a snapshot of the current flights and customers (including
-     * their states) in the system, typically used before making changes
-     * that may need a rollback if storage fails.
+     * Writes the whole system to the binary snapshot, which is loaded in place of
+     * the text files from then on. The changed text files are written in the same
+     * generation, so they can still be loaded should the snapshot be damaged. The
+     * journal is discarded once the generation is durable, as for {@link #store}.
      *
-     * @param fbs the flight booking system to snapshot
-     * @return a <code>Snapshot</code> containing lists of flights/customers
+     * @param fbs the flight booking system to save
+     * @throws IOException if the snapshot cannot be written
      */
-    public static Snapshot createSnapshot(FlightBookingSystem fbs) {
-        return new Snapshot(fbs.getAllFlights(), fbs.getAllCustomers());
+    public static void storeSnapshot(FlightBookingSystem fbs) throws IOException {
+        runExclusive(fbs, () -> {
+            JOURNAL.flush();
+            List<DataManager> written = new ArrayList<>();
+            for (DataManager manager : DATA_MANAGERS) {
+                if (manager.isDirty(fbs)) {
+                    written.add(manager);
+                }
+            }
+            written.add(BINARY_SNAPSHOT);
+            JOURNAL.rotate(GENERATIONS.getGeneration());
+            GENERATIONS.commit(fbs, written);
+            fbs.clearDirty();
+            JOURNAL.discardCovered(GENERATIONS.getDurableGeneration());
+        });
     }
 
     /**
-     * Restores the system from a previously taken snapshot, discarding
-     * any recent changes.
-     *
-     * @param fbs       the flight booking system to restore
-     * @param snapshot  the snapshot from which to restore
+     * Runs a store on the checkpointer thread, after any running checkpoint,
+     * while no transaction is open. If a checkpoint failed, every entity set is
+     * first marked dirty so that the store rewrites what it did not.
      */
-    public static void restoreFromSnapshot(FlightBookingSystem fbs, Snapshot snapshot) {
-        fbs.getAllFlights().clear();
-        fbs.getAllCustomers().clear();
-        for (bcu.cmp5332.bookingsystem.model.Flight flight : snapshot.getFlights()) {
-            fbs.addFlight(flight);
-        }
-        for (bcu.cmp5332.bookingsystem.model.Customer customer : snapshot.getCustomers()) {
-            fbs.addCustomer(customer);
-        }
+    private static void runExclusive(FlightBookingSystem fbs, Checkpointer.Task task) throws IOException {
+        CHECKPOINTS.run(() -> {
+            Lock exclusive = fbs.exclusiveLock();
+            exclusive.lock();
+            try {
+                if (CHECKPOINTS.clearFailure()) {
+                    fbs.markDirty(EntityType.values());
+                }
+                task.run();
+            } finally {
+                exclusive.unlock();
+            }
+        });
     }
 
     /**
-     * A simple container class for storing lists of flights and customers
-     * at a given moment in time (for rollback or backup).
+     * Takes a checkpoint, on the checkpointer thread: the changed data files are
+     * written as a new generation, and the journal entries they contain are
+     * discarded once it is durable, so the journal a restart has to replay stays
+     * short.
+     * <p>
+     * The files are written from a copy of the system taken together with a
+     * rotation of the journal while no transaction is open, so the checkpoint is
+     * a consistent point-in-time view. Only the copy keeps transactions out, so
+     * commands carry on changing the system while the files are written. If the
+     * checkpoint fails the failure is logged, its journal segment is kept and
+     * replayed on start-up, and the next checkpoint or store rewrites every file.
      */
-    public static class Snapshot {
-        private final java.util.List<bcu.cmp5332.bookingsystem.model.Flight> flights;
-        private final java.util.List<bcu.cmp5332.bookingsystem.model.Customer> customers;
-
-        /**
-         * Constructs a new <code>Snapshot</code> with the provided flight and customer lists.
-         *
-         * @param flights   a list of flights to include in the snapshot
-         * @param customers a list of customers to include in the snapshot
-         */
-        public Snapshot(
-            java.util.List<bcu.cmp5332.bookingsystem.model.Flight> flights,
-            java.util.List<bcu.cmp5332.bookingsystem.model.Customer> customers
-        ) {
-            this.flights = flights;
-            this.customers = customers;
+    private static void checkpoint(FlightBookingSystem fbs) throws IOException {
+        List<DataManager> dirty;
+        FlightBookingSystem view;
+        Lock exclusive = fbs.exclusiveLock();
+        exclusive.lock();
+        try {
+            if (CHECKPOINTS.clearFailure()) {
+                fbs.markDirty(EntityType.values());
+            }
+            JOURNAL.flush();
+            dirty = dirtyManagers(fbs);
+            if (dirty.isEmpty()) {
+                // Nothing was journaled since the last rotation
+                JOURNAL.discardCovered(GENERATIONS.getDurableGeneration());
+                return;
+            }
+            view = fbs.copy();
+            JOURNAL.rotate(GENERATIONS.getGeneration());
+            fbs.clearDirty();
+        } finally {
+            exclusive.unlock();
         }
+        GENERATIONS.commit(view, dirty);
+        JOURNAL.discardCovered(GENERATIONS.getDurableGeneration());
+    }
 
-        /**
-         * Returns the list of flights in this snapshot.
-         *
-         * @return a list of flights
-         */
-        public java.util.List<bcu.cmp5332.bookingsystem.model.Flight> getFlights() {
-            return flights;
+    /**
+     * Returns the managers whose files are out of date: the text files of every
+     * dirty entity set, and the binary snapshot if it is in use and anything changed.
+     */
+    private static List<DataManager> dirtyManagers(FlightBookingSystem fbs) {
+        List<DataManager> dirty = new ArrayList<>();
+        for (DataManager manager : DATA_MANAGERS) {
+            if (manager.isDirty(fbs)) {
+                dirty.add(manager);
+            }
+        }
+        if (BINARY_SNAPSHOT.exists() && BINARY_SNAPSHOT.isDirty(fbs)) {
+            dirty.add(BINARY_SNAPSHOT);
         }
+        return dirty;
+    }
+
+    /**
+     * Returns every manager whose file can be part of a generation.
+     */
+    private static List<DataManager> allManagers() {
+        List<DataManager> managers = new ArrayList<>(DATA_MANAGERS);
+        managers.add(BINARY_SNAPSHOT);
+        return managers;
+    }
 
-        /**
-         * Returns the list of customers in this snapshot.
-         *
-         * @return a list of customers
-         */
-        public java.util.List<bcu.cmp5332.bookingsystem.model.Customer> getCustomers() {
-            return customers;
+    /**
+     * Persists a single mutation by appending it to the journal. This is what
+     * commands call after changing the system, instead of a full {@link #store}.
+     * <p>
+     * The entity sets changed by the entry are marked dirty so that the next
+     * {@link #store} rewrites their files. The entry is appended only after those
+     * of every transaction that changed the system before this one, so that
+     * replay meets them in an order it can apply.
+     * <p>
+     * Unless the commit mode is <code>ASYNC</code>, this waits until the entry
+     * is durable, sharing the disk force with any concurrent mutations. In
+     * <code>ASYNC</code> mode it returns straight away, unless durability has
+     * fallen more than the configured maximum lag behind.
+     * <p>
+     * If the journal has reached the checkpoint size or interval, a
+     * {@link #checkpoint} is started in the background afterwards; this never
+     * waits for it, and its failure does not fail the append.
+     *
+     * @param fbs   the flight booking system the mutation was made to
+     * @param tx    the open transaction the mutation was made in
+     * @param entry the mutation to record
+     * @return a future completed once the entry has been forced to disk
+     * @throws IOException if the journal cannot be written
+     */
+    public static CompletableFuture<Void> append(FlightBookingSystem fbs, Transaction tx, JournalEntry entry)
+            throws IOException {
+        fbs.markDirty(entry.getType().getAffected());
+        CompletableFuture<Void> durable = JOURNAL.append(tx, entry);
+        if (COMMIT_MODE != CommitMode.ASYNC) {
+            Journal.await(durable);
         }
+        CHECKPOINTS.startIfDue(JOURNAL.getSize(), () -> checkpoint(fbs));
+        return durable;
+    }
+
+    /**
+     * Waits until every mutation appended so far is durable, forces any files
+     * written by a <code>NONE</code> or <code>PERIODIC</code> store, and then
+     * discards the journal those files contain. Used by the <code>flush</code>
+     * command and on shutdown.
+     *
+     * @throws IOException if pending journal entries or files cannot be written
+     */
+    public static void flush() throws IOException {
+        JOURNAL.flush();
+        GENERATIONS.sync();
+        JOURNAL.discardCovered(GENERATIONS.getDurableGeneration());
     }
 }
@@ -1,11 +1,14 @@
 package bcu.cmp5332.bookingsystem.data;
 
+import bcu.cmp5332.bookingsystem.model.EntityType;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Manages loading and storing flight data to/from a text file.
@@ -26,13 +29,25 @@ public class FlightDataManager implements DataManager {
      */
     @Override
     public void loadData(FlightBookingSystem fbs) throws IOException {
+        for (Flight flight : readFlights()) {
+            fbs.addFlight(flight);
+        }
+    }
+
+    /**
+     * Parses <code>flights.txt</code> without touching any
+     * <code>FlightBookingSystem</code>, so it can run alongside the other loaders.
+     *
+     * @return the stored flights, in file order
+     * @throws IOException if reading the file fails
+     */
+    public List<Flight> readFlights() throws IOException {
+        List<Flight> flights = new ArrayList<>();
         File file = new File(FILE_NAME);
-        if (!file.exists()) return;
+        if (!file.exists()) return flights;
 
-        try (Scanner scanner = new Scanner(new FileReader(file))) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] data = line.split(SEPARATOR);
+        try (RecordReader reader = new RecordReader(file)) {
+            while (reader.nextRecord()) {
                 // Data (10 fields total):
                 // 0: id
                 // 1: flightNumber
@@ -44,16 +59,16 @@ public class FlightDataManager implements DataManager {
                 // 7: firstCap
                 // 8: basePrice
                 // 9: deleted
-                int id = Integer.parseInt(data[0]);
-                String flightNumber = data[1];
-                String origin = data[2];
-                String destination = data[3];
-                LocalDate departureDate = LocalDate.parse(data[4]);
-                int econCap = Integer.parseInt(data[5]);
-                int bizCap = Integer.parseInt(data[6]);
-                int firstCap = Integer.parseInt(data[7]);
-                double basePrice = Double.parseDouble(data[8]);
-                boolean deleted = Boolean.parseBoolean(data[9]);
+                int id = reader.nextInt();
+                String flightNumber = reader.nextString();
+                String origin = reader.nextString();
+                String destination = reader.nextString();
+                LocalDate departureDate = reader.nextDate();
+                int econCap = reader.nextInt();
+                int bizCap = reader.nextInt();
+                int firstCap = reader.nextInt();
+                double basePrice = reader.nextDouble();
+                boolean deleted = reader.nextBoolean();
 
                 Flight flight = new Flight(
                     id,
@@ -67,21 +82,44 @@ public class FlightDataManager implements DataManager {
                     basePrice,
                     deleted
                 );
-                fbs.addFlight(flight);
+                flights.add(flight);
             }
         }
+        return flights;
+    }
+
+    /**
+     * Flights are dirty when one is added or deleted, or a booking changes its seat capacities.
+     *
+     * @param fbs the flight booking system whose data would be saved
+     * @return true if <code>flights.txt</code> needs to be rewritten
+     */
+    @Override
+    public boolean isDirty(FlightBookingSystem fbs) {
+        return fbs.isDirty(EntityType.FLIGHT);
+    }
+
+    /**
+     * Returns <code>flights.txt</code>.
+     *
+     * @return the live data file
+     */
+    @Override
+    public File getFile() {
+        return new File(FILE_NAME);
     }
 
     /**
      * Stores flight data (including seat capacities and deletion status)
-     * into <code>flights.txt</code>.
+     * in the <code>flights.txt</code> format.
      *
      * @param fbs the flight booking system from which to gather flight data
+     * @param out the stream to write the file to
      * @throws IOException if writing the file fails
      */
     @Override
-    public void storeData(FlightBookingSystem fbs) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(FILE_NAME))) {
+    public void storeData(FlightBookingSystem fbs, OutputStream out) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)))) {
             for (Flight flight : fbs.getAllFlights()) {
                 writer.println(
                     flight.getId() + SEPARATOR +
@@ -96,6 +134,9 @@ public class FlightDataManager implements DataManager {
                     flight.isDeleted()
                 );
             }
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + getFile());
+            }
         }
     }
 }
@@ -0,0 +1,586 @@
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Replaces the data files as numbered generations, so that a crash during a
+ * store never leaves a mix of old and new files, or a half-written file, in use.
+ * <p>
+ * A store writes each changed file to <code>&lt;file&gt;.new</code>, checksumming it
+ * as it is written, and then commits by atomically replacing the generation marker,
+ * which lists the generation, length and CRC-32 of every data file together with
+ * those of its previous version. Only after the commit are the new files renamed
+ * into place, keeping the files they replace as <code>&lt;file&gt;.prev</code>.
+ * <p>
+ * Before loading, {@link #recover} checks the files on disk against the marker:
+ * new files from a store that never committed are discarded, renames left unfinished
+ * by a committed store are completed, and if any file does not match (for example
+ * because it was never forced under a relaxed {@link Durability}) every file is
+ * rolled back to the previous generation. A generation whose files had all been
+ * forced is never rolled back, as the journal that would rebuild it is gone; a
+ * damaged file in it fails recovery instead. Only the files about to be loaded are
+ * read to check their CRC; the others are checked by length, and are rewritten
+ * by the next store anyway. The marker records whether its generation's files
+ * were forced, so an orderly restart does not force them again.
+ * <p>
+ * Under a relaxed durability a committed generation may still be lost in a
+ * crash until its files have been forced. {@link #getDurableGeneration} tells
+ * callers which generation is safely on disk, so they can keep the journal that
+ * would rebuild a later one until then.
+ */
+public class GenerationStore {
+    private static final String SEPARATOR = "::";
+    private static final String NEW_SUFFIX = ".new";
+    private static final String PREVIOUS_SUFFIX = ".prev";
+    private static final String REJECTED_SUFFIX = ".rejected";
+    // Follows the generation in a marker whose files had all been forced when it was written
+    private static final String DURABLE = "durable";
+    private static final int CHECKSUM_BUFFER_BYTES = 64 * 1024;
+
+    private final File marker;
+    private final Durability durability;
+    private final long syncIntervalMillis;
+
+    private long generation;
+    // The newest generation whose files have all been forced
+    private long durableGeneration;
+    // Whether the marker last read says its generation's files were all forced
+    private boolean markedDurable;
+    private Map<String, FileVersion> versions = new LinkedHashMap<>();
+    private final Set<File> unsynced = new LinkedHashSet<>();
+    private ScheduledExecutorService syncer;
+
+    /**
+     * Creates a generation store whose marker is kept in the given file.
+     *
+     * @param markerFileName     the path of the generation marker
+     * @param durability         how new files are forced to disk
+     * @param syncIntervalMillis how often <code>PERIODIC</code> durability forces written files
+     */
+    public GenerationStore(String markerFileName, Durability durability, long syncIntervalMillis) {
+        this.marker = new File(markerFileName);
+        this.durability = durability;
+        this.syncIntervalMillis = Math.max(1, syncIntervalMillis);
+    }
+
+    /**
+     * Returns the generation of the data files on disk.
+     *
+     * @return the current generation, or 0 if no store has been committed
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the newest generation known to survive a crash: every one of its
+     * files has been forced to disk. Under <code>ON_COMMIT</code> durability this
+     * is always the current generation.
+     *
+     * @return the newest durable generation, or 0 if none is known
+     */
+    public synchronized long getDurableGeneration() {
+        return durableGeneration;
+    }
+
+    /**
+     * Brings the files of the given managers back to a consistent generation,
+     * and forces that generation's files so it is durable from then on, unless
+     * the marker says they already were. Must be called before they are loaded.
+     *
+     * @param managers every manager whose file may be part of a generation
+     * @param loaded   the managers whose files are about to be loaded; only these
+     *                 are read in full to check their CRC
+     * @throws IOException if no consistent generation can be found on disk
+     */
+    public synchronized void recover(List<DataManager> managers, List<DataManager> loaded) throws IOException {
+        boolean changed = readMarker();
+        Set<String> checked = new HashSet<>();
+        for (DataManager manager : loaded) {
+            checked.add(manager.getFile().getName());
+        }
+
+        for (DataManager manager : managers) {
+            File file = manager.getFile();
+            File newFile = sibling(file, NEW_SUFFIX);
+            if (!newFile.exists()) continue;
+
+            FileVersion version = versions.get(file.getName());
+            if (version != null && version.generation == generation
+                    && version.matches(newFile, checked.contains(file.getName()))) {
+                replace(file, newFile);
+            } else {
+                Files.delete(newFile.toPath());
+            }
+            changed = true;
+        }
+
+        for (Iterator<Map.Entry<String, FileVersion>> it = versions.entrySet().iterator(); it.hasNext(); ) {
+            File file = fileFor(it.next().getKey());
+            if (!file.exists() && !sibling(file, PREVIOUS_SUFFIX).exists()) {
+                // Removed on purpose (e.g. a snapshot the operator deleted); nothing to check
+                it.remove();
+                changed = true;
+            }
+        }
+
+        List<File> restore = planRestore(versions, checked);
+        if (restore == null) {
+            if (markedDurable) {
+                // Its files were all forced, so they were damaged since, and its journal is gone
+                throw new IOException("The data files in " + marker.getAbsoluteFile().getParent()
+                    + " do not match durable generation " + generation);
+            }
+            Map<String, FileVersion> previous = previousGeneration();
+            restore = previous == null ? null : planRestore(previous, checked);
+            if (restore == null) {
+                throw new IOException("No consistent generation of the data files in "
+                    + marker.getAbsoluteFile().getParent());
+            }
+            previous.values().removeIf(version -> version == FileVersion.ABSENT);
+            generation--;
+            versions = previous;
+        }
+
+        for (File file : restore) {
+            File previousFile = sibling(file, PREVIOUS_SUFFIX);
+            if (previousFile.exists()) {
+                move(previousFile, file);
+            } else {
+                Files.deleteIfExists(file.toPath());
+            }
+            changed = true;
+        }
+
+        if (!changed && markedDurable) {
+            durableGeneration = generation;
+            return;
+        }
+        // The files may have been left unforced by the last run
+        for (String name : versions.keySet()) {
+            File file = fileFor(name);
+            if (file.exists()) {
+                force(file);
+            }
+        }
+        if (marker.exists() || !versions.isEmpty()) {
+            writeMarker(generation, versions, true);
+        }
+        forceDirectory();
+        durableGeneration = generation;
+    }
+
+    /**
+     * Takes a damaged file out of every generation: it and any previous or new
+     * version of it are moved aside with a <code>.rejected</code> suffix, so that
+     * the next {@link #recover} no longer checks it.
+     *
+     * @param manager the manager whose file is damaged
+     * @return where the live file was moved to
+     * @throws IOException if a file cannot be moved
+     */
+    public synchronized File reject(DataManager manager) throws IOException {
+        File file = manager.getFile();
+        for (File version : new File[] {file, sibling(file, PREVIOUS_SUFFIX), sibling(file, NEW_SUFFIX)}) {
+            if (version.exists()) {
+                move(version, sibling(version, REJECTED_SUFFIX));
+            }
+        }
+        versions.remove(file.getName());
+        return sibling(file, REJECTED_SUFFIX);
+    }
+
+    /**
+     * Writes the files of the given managers as a new generation and commits it.
+     * Files of managers not passed in are carried over unchanged.
+     *
+     * @param fbs      the flight booking system to save
+     * @param managers the managers whose files have changed
+     * @throws IOException if any file cannot be written; the previous generation stays in use
+     */
+    public synchronized void commit(FlightBookingSystem fbs, List<DataManager> managers) throws IOException {
+        boolean force = durability == Durability.ON_COMMIT;
+        long next = generation + 1;
+        Map<String, FileVersion> updated = new LinkedHashMap<>(versions);
+
+        for (DataManager manager : managers) {
+            File file = manager.getFile();
+            FileVersion previous = versions.get(file.getName());
+            if (previous == null) {
+                previous = file.exists() ? FileVersion.of(0, file, null) : FileVersion.ABSENT;
+            }
+            if (previous == FileVersion.ABSENT) {
+                // Left from before the file was part of any generation
+                Files.deleteIfExists(sibling(file, PREVIOUS_SUFFIX).toPath());
+            }
+            updated.put(file.getName(), write(manager, fbs, sibling(file, NEW_SUFFIX),
+                new FileVersion(next, 0, 0, previous.withoutPrevious()), force));
+        }
+
+        writeMarker(next, updated, force);
+        generation = next;
+        versions = updated;
+
+        List<File> written = new ArrayList<>();
+        for (DataManager manager : managers) {
+            File file = manager.getFile();
+            replace(file, sibling(file, NEW_SUFFIX));
+            written.add(file);
+        }
+        written.add(marker);
+
+        if (force) {
+            forceDirectory();
+            durableGeneration = next;
+        } else {
+            unsynced.addAll(written);
+            if (durability == Durability.PERIODIC) {
+                startSyncer();
+            }
+        }
+    }
+
+    /**
+     * Forces every file written by a <code>NONE</code> or <code>PERIODIC</code>
+     * store that has not been forced yet, making the generation current when it
+     * started durable. Does nothing under <code>ON_COMMIT</code> durability.
+     *
+     * @throws IOException if a file cannot be forced
+     */
+    public void sync() throws IOException {
+        List<File> files;
+        long target;
+        synchronized (this) {
+            files = new ArrayList<>(unsynced);
+            target = generation;
+        }
+        if (files.isEmpty()) return;
+
+        boolean complete = true;
+        for (File file : files) {
+            try {
+                force(file);
+            } catch (NoSuchFileException ex) {
+                // Replaced by a later store, which will sync its own files
+                complete = false;
+            }
+        }
+        forceDirectory();
+        synchronized (this) {
+            unsynced.removeAll(files);
+            if (complete) {
+                durableGeneration = Math.max(durableGeneration, target);
+            }
+        }
+    }
+
+    /**
+     * Works out how to bring every file to the given versions, using the live file
+     * where it already matches and its previous version otherwise. Only the
+     * checked files are compared by CRC as well as by length.
+     *
+     * @return the files to restore from their previous version, or null if some
+     *         file matches neither
+     */
+    private List<File> planRestore(Map<String, FileVersion> target, Set<String> checked) throws IOException {
+        List<File> restore = new ArrayList<>();
+        for (Map.Entry<String, FileVersion> entry : target.entrySet()) {
+            File file = fileFor(entry.getKey());
+            boolean checksum = checked.contains(entry.getKey());
+            if (entry.getValue().matches(file, checksum)) continue;
+            if (!entry.getValue().matches(sibling(file, PREVIOUS_SUFFIX), checksum)) {
+                return null;
+            }
+            restore.add(file);
+        }
+        return restore;
+    }
+
+    /**
+     * Returns the versions making up the generation before the current one, or
+     * null if a file written by the current generation has no known previous version.
+     */
+    private Map<String, FileVersion> previousGeneration() {
+        Map<String, FileVersion> previous = new LinkedHashMap<>();
+        for (Map.Entry<String, FileVersion> entry : versions.entrySet()) {
+            FileVersion version = entry.getValue();
+            if (version.generation == generation) {
+                if (version.previous == null) return null;
+                version = version.previous;
+            }
+            previous.put(entry.getKey(), version);
+        }
+        return previous;
+    }
+
+    /**
+     * Reads the marker, falling back to the copy kept from the previous commit
+     * if the marker itself was not written out completely.
+     *
+     * @return true if the fallback copy had to be used
+     */
+    private boolean readMarker() throws IOException {
+        generation = 0;
+        markedDurable = false;
+        versions = new LinkedHashMap<>();
+
+        File previousMarker = sibling(marker, PREVIOUS_SUFFIX);
+        if (!marker.exists() && !previousMarker.exists()) return false;
+
+        try {
+            parseMarker(marker);
+            return false;
+        } catch (IOException | RuntimeException ex) {
+            try {
+                parseMarker(previousMarker);
+            } catch (IOException | RuntimeException ignored) {
+                throw new IOException("Generation marker " + marker.getPath() + " is unreadable: " + ex.getMessage());
+            }
+            // Drop the damaged marker so it is not kept as the fallback copy
+            Files.deleteIfExists(marker.toPath());
+            return true;
+        }
+    }
+
+    private void parseMarker(File file) throws IOException {
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IOException("empty marker");
+        }
+
+        Map<String, FileVersion> parsed = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty()) continue;
+            String[] data = line.split(SEPARATOR);
+            FileVersion previous = null;
+            if (data.length >= 7) {
+                previous = Long.parseLong(data[5]) < 0 ? FileVersion.ABSENT
+                    : new FileVersion(Long.parseLong(data[4]), Long.parseLong(data[5]), Long.parseLong(data[6]), null);
+            }
+            parsed.put(data[0], new FileVersion(
+                Long.parseLong(data[1]), Long.parseLong(data[2]), Long.parseLong(data[3]), previous));
+        }
+        String[] head = lines.get(0).split(SEPARATOR);
+        generation = Long.parseLong(head[0]);
+        markedDurable = head.length > 1 && DURABLE.equals(head[1]);
+        versions = parsed;
+    }
+
+    /**
+     * Atomically replaces the marker; this rename is the commit point of a generation.
+     * A durable marker is forced itself, and records that the generation's files
+     * have all been forced.
+     */
+    private void writeMarker(long newGeneration, Map<String, FileVersion> newVersions, boolean durable)
+            throws IOException {
+        File newMarker = sibling(marker, NEW_SUFFIX);
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(newMarker), StandardCharsets.UTF_8))) {
+            writer.println(durable ? newGeneration + SEPARATOR + DURABLE : String.valueOf(newGeneration));
+            for (Map.Entry<String, FileVersion> entry : newVersions.entrySet()) {
+                FileVersion version = entry.getValue();
+                StringBuilder line = new StringBuilder(entry.getKey())
+                    .append(SEPARATOR).append(version.generation)
+                    .append(SEPARATOR).append(version.length)
+                    .append(SEPARATOR).append(version.crc);
+                if (version.previous != null) {
+                    line.append(SEPARATOR).append(version.previous.generation)
+                        .append(SEPARATOR).append(version.previous.length)
+                        .append(SEPARATOR).append(version.previous.crc);
+                }
+                writer.println(line);
+            }
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + newMarker);
+            }
+        }
+        if (durable) {
+            force(newMarker);
+        }
+        if (marker.exists()) {
+            Files.copy(marker.toPath(), sibling(marker, PREVIOUS_SUFFIX).toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        move(newMarker, marker);
+    }
+
+    /**
+     * Moves a new file over the live one, keeping the live one as the previous version.
+     * If there is no live file, a crash came between the two renames and the
+     * previous version is already in place, so it is kept.
+     */
+    private static void replace(File file, File newFile) throws IOException {
+        if (file.exists()) {
+            move(file, sibling(file, PREVIOUS_SUFFIX));
+        }
+        move(newFile, file);
+    }
+
+    /**
+     * Writes a manager's file, checksumming it on the way out so that it never
+     * has to be read back, and forcing it through the same handle if asked.
+     *
+     * @param version the generation and previous version to record; its length
+     *                and CRC are filled in from what was written
+     */
+    private static FileVersion write(DataManager manager, FlightBookingSystem fbs, File newFile,
+                                     FileVersion version, boolean force) throws IOException {
+        try (FileOutputStream file = new FileOutputStream(newFile)) {
+            ChecksummedOutputStream out = new ChecksummedOutputStream(file);
+            manager.storeData(fbs, out);
+            out.flush();
+            if (force) {
+                file.getChannel().force(true);
+            }
+            return new FileVersion(version.generation, out.length, out.crc.getValue(), version.previous);
+        }
+    }
+
+    private static void move(File from, File to) throws IOException {
+        Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private File fileFor(String name) {
+        return new File(marker.getParentFile(), name);
+    }
+
+    private static File sibling(File file, String suffix) {
+        return new File(file.getPath() + suffix);
+    }
+
+    private static void force(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Forces the renames in the data directory. Not every platform can open a
+     * directory, so failures are ignored.
+     */
+    private void forceDirectory() {
+        File directory = marker.getAbsoluteFile().getParentFile();
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ex) {
+            // Directory sync is best effort
+        }
+    }
+
+    /**
+     * Starts the background thread that forces <code>PERIODIC</code> stores.
+     */
+    private void startSyncer() {
+        if (syncer != null) return;
+        syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "store-syncer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (IOException ex) {
+                // Left in the unsynced set and retried on the next run
+            }
+        }, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reads a file through one reused buffer rather than mapping it, so no mapping
+     * outlives the check and keeps the file from being renamed on Windows.
+     */
+    private static long checksum(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocate(CHECKSUM_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buf) >= 0) {
+                buf.flip();
+                crc.update(buf.array(), 0, buf.limit());
+                buf.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * The length and checksum a data file had in a given generation.
+     */
+    private static final class FileVersion {
+        // The version of a file that did not exist yet
+        static final FileVersion ABSENT = new FileVersion(0, -1, 0, null);
+
+        final long generation;
+        final long length;
+        final long crc;
+        // The version this one replaced, or null if it is not known
+        final FileVersion previous;
+
+        FileVersion(long generation, long length, long crc, FileVersion previous) {
+            this.generation = generation;
+            this.length = length;
+            this.crc = crc;
+            this.previous = previous;
+        }
+
+        static FileVersion of(long generation, File file, FileVersion previous) throws IOException {
+            return new FileVersion(generation, file.length(), checksum(file), previous);
+        }
+
+        FileVersion withoutPrevious() {
+            return previous == null ? this : new FileVersion(generation, length, crc, null);
+        }
+
+        boolean matches(File file, boolean checksum) throws IOException {
+            if (length < 0) {
+                return !file.exists();
+            }
+            return file.exists() && file.length() == length && (!checksum || checksum(file) == crc);
+        }
+    }
+
+    /**
+     * Counts and checksums the bytes written through it. Closing it only flushes,
+     * so the file can still be forced afterwards.
+     */
+    private static final class ChecksummedOutputStream extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private long length;
+
+        ChecksummedOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            length++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            length += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.model.EntityType;
+import bcu.cmp5332.bookingsystem.model.IdAllocator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps the ID high-water marks of the {@link IdAllocator}s in a small file next
+ * to the data files, one <code>TYPE::mark</code> line per kind of entity.
+ * <p>
+ * Each reservation holds an exclusive lock on <code>&lt;file&gt;.lock</code> while
+ * it reads the marks, so processes sharing the data directory reserve disjoint
+ * blocks. The new marks are forced to disk and then atomically renamed over the
+ * file before the block is handed out, so a crash never lets a reserved ID be
+ * reserved again.
+ */
+public class IdBlockStore implements IdAllocator.BlockStore {
+    private static final String SEPARATOR = "::";
+
+    private final File file;
+
+    /**
+     * Creates a store keeping its marks in the given file.
+     *
+     * @param fileName the path of the high-water mark file
+     */
+    public IdBlockStore(String fileName) {
+        this.file = new File(fileName);
+    }
+
+    @Override
+    public synchronized int reserve(EntityType type, int from, int count) throws IOException {
+        File lockFile = new File(file.getPath() + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                Map<EntityType, Integer> marks = readMarks();
+                Integer mark = marks.get(type);
+                int start = mark == null ? from : Math.max(from, mark);
+                marks.put(type, start + count);
+                writeMarks(marks);
+                return start;
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private Map<EntityType, Integer> readMarks() throws IOException {
+        Map<EntityType, Integer> marks = new EnumMap<>(EntityType.class);
+        if (!file.exists()) {
+            return marks;
+        }
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) continue;
+            String[] data = line.split(SEPARATOR);
+            try {
+                marks.put(EntityType.valueOf(data[0]), Integer.parseInt(data[1]));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException ex) {
+                throw new IOException("Unreadable ID mark in " + file.getPath() + ": " + line);
+            }
+        }
+        return marks;
+    }
+
+    private void writeMarks(Map<EntityType, Integer> marks) throws IOException {
+        File newFile = new File(file.getPath() + ".new");
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(newFile), StandardCharsets.UTF_8))) {
+            for (Map.Entry<EntityType, Integer> entry : marks.entrySet()) {
+                writer.println(entry.getKey() + SEPARATOR + entry.getValue());
+            }
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + newFile);
+            }
+        }
+        try (FileChannel channel = FileChannel.open(newFile.toPath(), StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(newFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,510 @@
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.Transaction;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An append-only journal of mutations made since the last full store.
+ * <p>
+ * Each mutating command appends one {@link JournalEntry} instead of rewriting
+ * every data file, so the cost of persisting a change does not depend on the
+ * size of the data set. On start-up the journal is replayed on top of the data
+ * loaded from the text files, and it is emptied once a full store containing its
+ * entries is durable.
+ * <p>
+ * In {@link CommitMode#SYNC} mode every entry is written and forced on its own.
+ * Otherwise entries are handed to a committer thread, which collects everything
+ * that arrives within the group window (or up to the group size) and makes the
+ * whole group durable with a single write and <code>force()</code>.
+ * <p>
+ * The committer's queue is bounded, so a burst of mutations that outruns the disk
+ * blocks in {@link #append} instead of piling up in memory. In
+ * {@link CommitMode#ASYNC} mode, where commands do not normally wait, an append
+ * also waits for its entry once the oldest entry not yet durable is older than
+ * the maximum lag.
+ * <p>
+ * A checkpoint {@link #rotate rotates} the journal: the entries written so far
+ * move to a segment named after the generation the checkpoint starts from, and
+ * new entries go to a fresh journal. Once the checkpoint's generation is durable
+ * on disk, the segments it covers are {@link #discardCovered discarded}.
+ */
+public class Journal {
+    private static final byte[] LINE_END = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final File file;
+    private final CommitMode mode;
+    private final long groupWindowNanos;
+    private final int groupMaxRecords;
+    private final long maxLagNanos;
+    // Bytes appended to the current journal file since it was last rotated or reset
+    private final AtomicLong size = new AtomicLong();
+
+    private final BlockingQueue<PendingWrite> pending;
+    private FileChannel channel;
+    private Thread committer;
+    // When the group being committed was first enqueued, or 0 while idle
+    private volatile long committingSince;
+
+    /**
+     * Creates a journal backed by the given file.
+     *
+     * @param fileName          the path of the journal file
+     * @param mode              how appended entries are made durable
+     * @param groupWindowMillis how long to wait for more entries before writing a group
+     * @param groupMaxRecords   the largest number of entries written as one group
+     * @param queueCapacity     how many entries may wait for the committer before appends block
+     * @param maxLagMillis      how far durability may fall behind in <code>ASYNC</code> mode
+     */
+    public Journal(String fileName, CommitMode mode, long groupWindowMillis, int groupMaxRecords,
+                   int queueCapacity, long maxLagMillis) {
+        this.file = new File(fileName);
+        this.mode = mode;
+        this.groupWindowNanos = TimeUnit.MILLISECONDS.toNanos(groupWindowMillis);
+        this.groupMaxRecords = Math.max(1, groupMaxRecords);
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        this.pending = new LinkedBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    /**
+     * Appends one entry to the end of the journal.
+     *
+     * @param entry the mutation to record
+     * @return a future completed once the entry has been forced to disk
+     * @throws IOException if writing to the journal fails in <code>SYNC</code> mode,
+     *                     or an entry waited on because of the lag limit could not be written
+     */
+    public CompletableFuture<Void> append(JournalEntry entry) throws IOException {
+        byte[] line = entry.toLine().getBytes(StandardCharsets.UTF_8);
+        size.addAndGet(line.length + LINE_END.length);
+        if (mode == CommitMode.SYNC) {
+            synchronized (this) {
+                write(ByteBuffer.wrap(concat(line)));
+                channel.force(false);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        PendingWrite write = new PendingWrite(line);
+        enqueue(write);
+        if (mode == CommitMode.ASYNC && getLagNanos() > maxLagNanos) {
+            await(write.durable);
+        }
+        return write.durable;
+    }
+
+    /**
+     * Appends the entry recording a transaction's changes once every transaction
+     * that changed the system before it has been journaled or has finished, so
+     * entries are written in the order their changes were made and replay never
+     * meets an entry before one it depends on.
+     *
+     * @param tx    the open transaction that made the changes
+     * @param entry the mutation to record
+     * @return a future completed once the entry has been forced to disk
+     * @throws IOException if the entry cannot be appended, or if interrupted
+     *                     while waiting for earlier transactions
+     */
+    public CompletableFuture<Void> append(Transaction tx, JournalEntry entry) throws IOException {
+        try {
+            tx.awaitJournalTurn();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal", ex);
+        }
+        try {
+            return append(entry);
+        } finally {
+            tx.journaled();
+        }
+    }
+
+    /**
+     * Waits until every entry appended so far has been forced to disk.
+     *
+     * @throws IOException if a pending group could not be written
+     */
+    public void flush() throws IOException {
+        if (mode == CommitMode.SYNC) return;
+        PendingWrite barrier = new PendingWrite(null);
+        enqueue(barrier);
+        await(barrier.durable);
+    }
+
+    /**
+     * Returns how long the oldest entry that is not yet durable has been waiting.
+     *
+     * @return the current lag in milliseconds, or 0 if every entry is durable
+     */
+    public long getLagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getLagNanos());
+    }
+
+    /**
+     * Returns how much has been appended to the current journal file, which is
+     * roughly how much a restart would have to replay.
+     *
+     * @return the journal size in bytes
+     */
+    public long getSize() {
+        return size.get();
+    }
+
+    private long getLagNanos() {
+        long oldest = committingSince;
+        PendingWrite head = pending.peek();
+        if (oldest == 0 && head != null) {
+            oldest = head.enqueued;
+        }
+        return oldest == 0 ? 0 : System.nanoTime() - oldest;
+    }
+
+    /**
+     * Hands an entry to the committer, blocking while its queue is full.
+     */
+    private void enqueue(PendingWrite write) throws IOException {
+        startCommitter();
+        try {
+            pending.put(write);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal", ex);
+        }
+    }
+
+    /**
+     * Re-applies every journaled entry to the given system, in the order they were
+     * written: first the segments of checkpoints that never completed, then the
+     * current journal. Segments already covered by the loaded generation are
+     * discarded rather than replayed.
+     * <p>
+     * A write interrupted by a crash can leave a fragment after the last complete
+     * line, or a last line that cannot be parsed. Neither was ever reported as
+     * durable, so it is skipped and cut off the file, and the next append starts
+     * on a fresh line. An entry that parses but cannot be applied is an error
+     * wherever it is.
+     *
+     * @param fbs        the flight booking system loaded from the last full store
+     * @param generation the generation the system was loaded from
+     * @return the number of entries replayed
+     * @throws IOException if the journal cannot be read or an entry cannot be applied
+     */
+    public synchronized int replay(FlightBookingSystem fbs, long generation) throws IOException {
+        discardCovered(generation);
+        int replayed = 0;
+        for (File segment : segments().values()) {
+            replayed += replay(fbs, segment);
+        }
+        replayed += replay(fbs, file);
+        size.set(file.length());
+        return replayed;
+    }
+
+    private static int replay(FlightBookingSystem fbs, File file) throws IOException {
+        if (!file.exists()) return 0;
+
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        // Only newline-terminated lines are complete records
+        int end = 0;
+        for (int i = bytes.length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                end = i + 1;
+                break;
+            }
+        }
+
+        int replayed = 0;
+        int entry = 0;
+        int start = 0;
+        while (start < end) {
+            int newline = start;
+            while (bytes[newline] != '\n') newline++;
+            int next = newline + 1;
+            int length = newline - start;
+            if (length > 0 && bytes[newline - 1] == '\r') length--;
+            if (length == 0) {
+                start = next;
+                continue;
+            }
+            entry++;
+            JournalEntry parsed;
+            try {
+                parsed = JournalEntry.parse(new String(bytes, start, length, StandardCharsets.UTF_8));
+            } catch (IOException ex) {
+                if (next == end) {
+                    end = start;
+                    break;
+                }
+                throw new IOException("Cannot replay entry " + entry + " of " + file.getName()
+                    + ": " + ex.getMessage());
+            }
+            try {
+                parsed.apply(fbs);
+            } catch (RuntimeException ex) {
+                throw new IOException("Cannot replay entry " + entry + " of " + file.getName()
+                    + ": " + ex, ex);
+            }
+            replayed++;
+            start = next;
+        }
+
+        if (end < bytes.length) {
+            truncate(file, end);
+        }
+        return replayed;
+    }
+
+    /**
+     * Cuts an interrupted write off the end of a journal file.
+     */
+    private static void truncate(File file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Discards all journaled entries, including any checkpoint segments. Called
+     * once their changes are contained in a full store of the data files.
+     *
+     * @throws IOException if the journal file cannot be removed
+     */
+    public synchronized void reset() throws IOException {
+        close();
+        delete(file);
+        for (File segment : segments().values()) {
+            delete(segment);
+        }
+        size.set(0);
+    }
+
+    /**
+     * Moves the entries written so far into the segment for the given generation,
+     * so that later entries start a new journal. If a segment for that generation
+     * already exists, because the checkpoint that created it failed, the entries
+     * are added to its end.
+     * <p>
+     * The caller must {@link #flush} first, and must not append concurrently.
+     *
+     * @param generation the generation the checkpoint starts from
+     * @throws IOException if the journal cannot be moved
+     */
+    public synchronized void rotate(long generation) throws IOException {
+        close();
+        size.set(0);
+        if (!file.exists()) return;
+
+        File segment = segmentFile(generation);
+        if (segment.exists()) {
+            Files.write(segment.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+            delete(file);
+        } else {
+            Files.move(file.toPath(), segment.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Deletes every segment rotated out before the given generation, whose entries
+     * are all contained in that generation's data files.
+     *
+     * @param generation the generation now committed on disk
+     * @throws IOException if a segment cannot be removed
+     */
+    public synchronized void discardCovered(long generation) throws IOException {
+        for (Map.Entry<Long, File> segment : segments().entrySet()) {
+            if (segment.getKey() < generation) {
+                delete(segment.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns the rotated segments of this journal, oldest first.
+     */
+    private TreeMap<Long, File> segments() {
+        TreeMap<Long, File> segments = new TreeMap<>();
+        File directory = file.getAbsoluteFile().getParentFile();
+        String prefix = file.getName() + ".";
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(prefix));
+        if (files == null) return segments;
+        for (File segment : files) {
+            try {
+                segments.put(Long.parseLong(segment.getName().substring(prefix.length())), segment);
+            } catch (NumberFormatException ex) {
+                // Not a segment
+            }
+        }
+        return segments;
+    }
+
+    private File segmentFile(long generation) {
+        return new File(file.getPath() + "." + generation);
+    }
+
+    private static void delete(File file) throws IOException {
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to delete journal file " + file.getPath());
+        }
+    }
+
+    /**
+     * Closes the journal file if it is open. It is reopened by the next write.
+     *
+     * @throws IOException if closing the file fails
+     */
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Starts the background committer the first time it is needed.
+     */
+    private synchronized void startCommitter() {
+        if (committer == null) {
+            committer = new Thread(this::runCommitter, "journal-committer");
+            committer.setDaemon(true);
+            committer.start();
+        }
+    }
+
+    /**
+     * Collects pending entries into groups and commits each group with one write
+     * and one force. A group is closed when it reaches the maximum size, when
+     * the group window has passed since its first entry arrived, or when a
+     * flush is waiting for it.
+     */
+    private void runCommitter() {
+        List<PendingWrite> group = new ArrayList<>(groupMaxRecords);
+        try {
+            while (true) {
+                PendingWrite first = pending.take();
+                committingSince = first.enqueued;
+                group.add(first);
+                long deadline = System.nanoTime() + groupWindowNanos;
+                // A flush barrier closes the group, so a flush never waits out the window
+                while (first.line != null && group.size() < groupMaxRecords) {
+                    PendingWrite next = pending.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    group.add(next);
+                    if (next.line == null) break;
+                }
+                commit(group);
+                group.clear();
+                committingSince = 0;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes a group of entries and forces them to disk, then tells every
+     * waiting command whether its entry is durable.
+     */
+    private void commit(List<PendingWrite> group) {
+        int size = 0;
+        for (PendingWrite write : group) {
+            if (write.line != null) {
+                size += write.line.length + LINE_END.length;
+            }
+        }
+        try {
+            if (size > 0) {
+                ByteBuffer buffer = ByteBuffer.allocate(size);
+                for (PendingWrite write : group) {
+                    if (write.line != null) {
+                        buffer.put(write.line).put(LINE_END);
+                    }
+                }
+                buffer.flip();
+                synchronized (this) {
+                    write(buffer);
+                    channel.force(false);
+                }
+            }
+            for (PendingWrite write : group) {
+                write.durable.complete(null);
+            }
+        } catch (IOException ex) {
+            for (PendingWrite write : group) {
+                write.durable.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /**
+     * Writes the buffer at the end of the journal file, opening it if necessary.
+     */
+    private void write(ByteBuffer buffer) throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] concat(byte[] line) {
+        byte[] bytes = new byte[line.length + LINE_END.length];
+        System.arraycopy(line, 0, bytes, 0, line.length);
+        System.arraycopy(LINE_END, 0, bytes, line.length, LINE_END.length);
+        return bytes;
+    }
+
+    /**
+     * Waits for a durability future, unwrapping any write failure.
+     *
+     * @param durable the future returned by {@link #append}
+     * @throws IOException if the entry could not be made durable
+     */
+    static void await(CompletableFuture<Void> durable) throws IOException {
+        try {
+            durable.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * An entry waiting for the committer, with the future its command waits on.
+     * A <code>null</code> line marks a flush barrier.
+     */
+    private static class PendingWrite {
+        private final byte[] line;
+        private final long enqueued = System.nanoTime();
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        PendingWrite(byte[] line) {
+            this.line = line;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package bcu.cmp5332.bookingsystem.data;
+
+import bcu.cmp5332.bookingsystem.model.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * A single mutation recorded in the journal.
+ * <p>
+ * Each entry is stored as one line, starting with its <code>Type</code> and followed
+ * by the fields needed to repeat the change, separated by "::" like the other data files.
+ * Applying an entry that is already reflected in the loaded data is a no-op, so the
+ * journal can safely be replayed over a snapshot that was stored after it was written.
+ * Replay never fails for want of a seat: the snapshot may already hold bookings made
+ * after the entry, so a booking is linked to its flight even if no seat is left to take.
+ */
+public class JournalEntry {
+
+    /**
+     * The kinds of mutation that can be journaled, each with the number of fields
+     * it records and the entity sets (and so the data files) it changes.
+     */
+    public enum Type {
+        ADD_FLIGHT(9, EntityType.FLIGHT),
+        ADD_CUSTOMER(4, EntityType.CUSTOMER),
+        DELETE_FLIGHT(1, EntityType.FLIGHT),
+        DELETE_CUSTOMER(1, EntityType.CUSTOMER),
+        ADD_BOOKING(8, EntityType.BOOKING, EntityType.FLIGHT),
+        CANCEL_BOOKING(2, EntityType.BOOKING),
+        EDIT_BOOKING(4, EntityType.BOOKING, EntityType.FLIGHT);
+
+        private final int fieldCount;
+        private final EntityType[] affected;
+
+        Type(int fieldCount, EntityType... affected) {
+            this.fieldCount = fieldCount;
+            this.affected = affected;
+        }
+
+        /**
+         * Returns the entity sets changed by this kind of mutation.
+         *
+         * @return the affected entity sets
+         */
+        public EntityType[] getAffected() {
+            return affected.clone();
+        }
+    }
+
+    private static final String SEPARATOR = "::";
+
+    private final Type type;
+    private final String[] fields;
+
+    private JournalEntry(Type type, Object... fields) {
+        this.type = type;
+        this.fields = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            this.fields[i] = String.valueOf(fields[i]);
+        }
+    }
+
+    private JournalEntry(Type type, String[] fields) {
+        this.type = type;
+        this.fields = fields;
+    }
+
+    /**
+     * Creates an entry recording a newly added flight.
+     *
+     * @param flight the flight that was added
+     * @return the journal entry
+     */
+    public static JournalEntry addFlight(Flight flight) {
+        return new JournalEntry(Type.ADD_FLIGHT,
+            flight.getId(), flight.getFlightNumber(), flight.getOrigin(), flight.getDestination(),
+            flight.getDepartureDate(), flight.getEconCapacity(), flight.getBusinessCapacity(),
+            flight.getFirstCapacity(), flight.getBasePrice());
+    }
+
+    /**
+     * Creates an entry recording a newly added customer.
+     *
+     * @param customer the customer that was added
+     * @return the journal entry
+     */
+    public static JournalEntry addCustomer(Customer customer) {
+        return new JournalEntry(Type.ADD_CUSTOMER,
+            customer.getId(), customer.getName(), customer.getPhone(), customer.getEmail());
+    }
+
+    /**
+     * Creates an entry recording that a flight was soft-deleted.
+     *
+     * @param flight the deleted flight
+     * @return the journal entry
+     */
+    public static JournalEntry deleteFlight(Flight flight) {
+        return new JournalEntry(Type.DELETE_FLIGHT, flight.getId());
+    }
+
+    /**
+     * Creates an entry recording that a customer was soft-deleted.
+     *
+     * @param customer the deleted customer
+     * @return the journal entry
+     */
+    public static JournalEntry deleteCustomer(Customer customer) {
+        return new JournalEntry(Type.DELETE_CUSTOMER, customer.getId());
+    }
+
+    /**
+     * Creates an entry recording a new booking, including its seat type,
+     * food option, price and fee.
+     *
+     * @param booking the booking that was issued
+     * @return the journal entry
+     */
+    public static JournalEntry addBooking(Booking booking) {
+        return new JournalEntry(Type.ADD_BOOKING,
+            booking.getBookingId(), booking.getCustomer().getId(), booking.getFlight().getId(),
+            booking.getBookingDate(), booking.getSeatType(), booking.getFoodOption(),
+            booking.getBookingPrice(), booking.getFee());
+    }
+
+    /**
+     * Creates an entry recording that a customer's booking on a flight was cancelled.
+     *
+     * @param customer the customer whose booking was cancelled
+     * @param flight   the flight the booking was for
+     * @return the journal entry
+     */
+    public static JournalEntry cancelBooking(Customer customer, Flight flight) {
+        return new JournalEntry(Type.CANCEL_BOOKING, customer.getId(), flight.getId());
+    }
+
+    /**
+     * Creates an entry recording that a booking was moved to another flight or seat type.
+     *
+     * @param booking the booking after the update
+     * @return the journal entry
+     */
+    public static JournalEntry editBooking(Booking booking) {
+        return new JournalEntry(Type.EDIT_BOOKING,
+            booking.getBookingId(), booking.getFlight().getId(), booking.getSeatType(), booking.getFee());
+    }
+
+    /**
+     * Returns the type of mutation recorded by this entry.
+     *
+     * @return the entry type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Formats this entry as a single journal line (without line terminator).
+     *
+     * @return the journal line
+     */
+    public String toLine() {
+        StringBuilder sb = new StringBuilder(type.name());
+        for (String field : fields) {
+            sb.append(SEPARATOR).append(field);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses a journal line previously produced by {@link #toLine()}.
+     *
+     * @param line the journal line
+     * @return the parsed entry
+     * @throws IOException if the line is not a valid journal entry, or has the
+     *                     wrong number of fields for its type
+     */
+    public static JournalEntry parse(String line) throws IOException {
+        // Keep trailing empty fields, so a blank email still counts as a field
+        String[] data = line.split(SEPARATOR, -1);
+        Type type;
+        try {
+            type = Type.valueOf(data[0]);
+        } catch (IllegalArgumentException ex) {
+            throw new IOException("Invalid journal entry: " + line);
+        }
+        if (data.length - 1 != type.fieldCount) {
+            throw new IOException("Invalid journal entry: " + line);
+        }
+        return new JournalEntry(type, Arrays.copyOfRange(data, 1, data.length));
+    }
+
+    /**
+     * Re-applies the recorded mutation to the given system and marks the
+     * entity sets it affects as dirty.
+     *
+     * @param fbs the flight booking system to update
+     * @throws IllegalArgumentException if the entry refers to unknown flights, customers or bookings
+     */
+    public void apply(FlightBookingSystem fbs) {
+        fbs.markDirty(type.affected);
+        switch (type) {
+            case ADD_FLIGHT: {
+                int id = Integer.parseInt(fields[0]);
+                if (findFlight(fbs, id) != null) {
+                    return;
+                }
+                fbs.addFlight(new Flight(id, fields[1], fields[2], fields[3],
+                    LocalDate.parse(fields[4]), Integer.parseInt(fields[5]), Integer.parseInt(fields[6]),
+                    Integer.parseInt(fields[7]), Double.parseDouble(fields[8]), false));
+                break;
+            }
+            case ADD_CUSTOMER: {
+                int id = Integer.parseInt(fields[0]);
+                if (findCustomer(fbs, id) != null) {
+                    return;
+                }
+                fbs.addCustomer(new Customer(id, fields[1], fields[2], fields[3], false));
+                break;
+            }
+            case DELETE_FLIGHT: {
+                Flight flight = fbs.getFlightById(Integer.parseInt(fields[0]));
+                if (flight.isDeleted()) {
+                    return;
+                }
+                fbs.setFlightDeleted(flight, true);
+                break;
+            }
+            case DELETE_CUSTOMER: {
+                Customer customer = fbs.getCustomerById(Integer.parseInt(fields[0]));
+                if (customer.isDeleted()) {
+                    return;
+                }
+                fbs.setCustomerDeleted(customer, true);
+                break;
+            }
+            case ADD_BOOKING: {
+                int bookingId = Integer.parseInt(fields[0]);
+                if (findBooking(fbs, bookingId) != null) {
+                    return;
+                }
+                Customer customer = fbs.getCustomerById(Integer.parseInt(fields[1]));
+                Flight flight = fbs.getFlightById(Integer.parseInt(fields[2]));
+                SeatType seatType = SeatType.valueOf(fields[4]);
+
+                Booking booking = new Booking(bookingId, customer, flight, LocalDate.parse(fields[3]));
+                booking.setSeatType(seatType);
+                booking.setFoodOption(FoodOption.valueOf(fields[5]));
+                booking.setBookingPrice(Double.parseDouble(fields[6]));
+                booking.setFee(Double.parseDouble(fields[7]));
+
+                takeSeat(flight, customer, seatType);
+                fbs.addBooking(booking);
+                break;
+            }
+            case CANCEL_BOOKING: {
+                Customer customer = fbs.getCustomerById(Integer.parseInt(fields[0]));
+                Flight flight = fbs.getFlightById(Integer.parseInt(fields[1]));
+                if (customer.getBookings(flight).isEmpty() && !flight.hasPassenger(customer)) {
+                    return;
+                }
+                fbs.cancelBookingsForFlight(customer, flight);
+                flight.removePassenger(customer);
+                break;
+            }
+            case EDIT_BOOKING: {
+                // Gone if the snapshot already holds a later cancellation
+                Booking booking = findBooking(fbs, Integer.parseInt(fields[0]));
+                Flight newFlight = fbs.getFlightById(Integer.parseInt(fields[1]));
+                SeatType seatType = SeatType.valueOf(fields[2]);
+                if (booking == null || booking.getFlight() == newFlight && booking.getSeatType() == seatType) {
+                    return;
+                }
+                booking.getFlight().unlinkPassenger(booking.getCustomer(), booking.getSeatType());
+                takeSeat(newFlight, booking.getCustomer(), seatType);
+                fbs.moveBooking(booking, newFlight, seatType);
+                booking.setFee(Double.parseDouble(fields[3]));
+                break;
+            }
+        }
+    }
+
+    /**
+     * Takes a seat for a replayed booking if one is left, and links the passenger
+     * either way. A full cabin means the stored seat counts already include it.
+     */
+    private static void takeSeat(Flight flight, Customer customer, SeatType seatType) {
+        flight.tryReserve(seatType, 1);
+        flight.linkPassenger(customer, seatType);
+    }
+
+    /**
+     * Looks up a flight without treating a missing ID as an error.
+     */
+    private static Flight findFlight(FlightBookingSystem fbs, int flightId) {
+        try {
+            return fbs.getFlightById(flightId);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a customer without treating a missing ID as an error.
+     */
+    private static Customer findCustomer(FlightBookingSystem fbs, int customerId) {
+        try {
+            return fbs.getCustomerById(customerId);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks up a booking without treating a missing ID as an error.
+     */
+    private static Booking findBooking(FlightBookingSystem fbs, int bookingId) {
+        try {
+            return fbs.getBookingById(bookingId);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+}
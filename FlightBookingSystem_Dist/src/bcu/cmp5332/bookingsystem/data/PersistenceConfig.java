@@ -0,0 +1,123 @@
+package bcu.cmp5332.bookingsystem.data;
+
+/**
+ * Persistence settings for a deployment, read from system properties
+ * (e.g. <code>-Dfbs.journal.commitMode=SYNC</code>) with sensible defaults.
+ */
+public final class PersistenceConfig {
+
+    private PersistenceConfig() {
+    }
+
+    /**
+     * Returns how journaled mutations are made durable
+     * (property <code>fbs.journal.commitMode</code>, default <code>ASYNC</code>).
+     *
+     * @return the commit mode
+     */
+    public static CommitMode getCommitMode() {
+        String value = System.getProperty("fbs.journal.commitMode", CommitMode.ASYNC.name());
+        try {
+            return CommitMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown journal commit mode: " + value);
+        }
+    }
+
+    /**
+     * Returns how long the journal waits for further mutations before writing a group
+     * (property <code>fbs.journal.groupWindowMillis</code>, default 2).
+     *
+     * @return the group window in milliseconds
+     */
+    public static long getGroupWindowMillis() {
+        return Long.getLong("fbs.journal.groupWindowMillis", 2L);
+    }
+
+    /**
+     * Returns the largest number of mutations written as one group
+     * (property <code>fbs.journal.groupMaxRecords</code>, default 256).
+     *
+     * @return the maximum group size
+     */
+    public static int getGroupMaxRecords() {
+        return Integer.getInteger("fbs.journal.groupMaxRecords", 256);
+    }
+
+    /**
+     * Returns how many mutations may wait to be journaled before commands block
+     * (property <code>fbs.journal.queueCapacity</code>, default 4096).
+     *
+     * @return the journal queue capacity
+     */
+    public static int getQueueCapacity() {
+        return Integer.getInteger("fbs.journal.queueCapacity", 4096);
+    }
+
+    /**
+     * Returns how far durability may fall behind in <code>ASYNC</code> mode before
+     * commands wait for the journal to catch up
+     * (property <code>fbs.journal.maxLagMillis</code>, default 200).
+     *
+     * @return the maximum lag in milliseconds
+     */
+    public static long getMaxLagMillis() {
+        return Long.getLong("fbs.journal.maxLagMillis", 200L);
+    }
+
+    /**
+     * Returns how full stores force the data files to disk
+     * (property <code>fbs.store.durability</code>, default <code>ON_COMMIT</code>).
+     *
+     * @return the durability level
+     */
+    public static Durability getDurability() {
+        String value = System.getProperty("fbs.store.durability", Durability.ON_COMMIT.name());
+        try {
+            return Durability.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown store durability: " + value);
+        }
+    }
+
+    /**
+     * Returns how often files written by a <code>PERIODIC</code> store are forced
+     * (property <code>fbs.store.syncIntervalMillis</code>, default 1000).
+     *
+     * @return the sync interval in milliseconds
+     */
+    public static long getSyncIntervalMillis() {
+        return Long.getLong("fbs.store.syncIntervalMillis", 1000L);
+    }
+
+    /**
+     * Returns the journal size that triggers a background checkpoint
+     * (property <code>fbs.checkpoint.journalBytes</code>, default 4 MB; 0 disables it).
+     *
+     * @return the checkpoint size threshold in bytes
+     */
+    public static long getCheckpointJournalBytes() {
+        return Long.getLong("fbs.checkpoint.journalBytes", 4L * 1024 * 1024);
+    }
+
+    /**
+     * Returns how often a background checkpoint is taken while the journal is not empty
+     * (property <code>fbs.checkpoint.intervalMillis</code>, default 300000; 0 disables it).
+     *
+     * @return the checkpoint interval in milliseconds
+     */
+    public static long getCheckpointIntervalMillis() {
+        return Long.getLong("fbs.checkpoint.intervalMillis", 300000L);
+    }
+
+    /**
+     * Returns how many IDs of each kind are reserved at a time
+     * (property <code>fbs.ids.blockSize</code>, default 100). Larger blocks mean
+     * fewer writes of the high-water mark but bigger gaps in the IDs after a restart.
+     *
+     * @return the ID block size
+     */
+    public static int getIdBlockSize() {
+        return Integer.getInteger("fbs.ids.blockSize", 100);
+    }
+}
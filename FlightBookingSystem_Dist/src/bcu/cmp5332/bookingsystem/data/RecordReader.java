@@ -0,0 +1,357 @@
+package bcu.cmp5332.bookingsystem.data;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * A streaming reader for the "::"-separated text data files.
+ * <p>
+ * The file is read in large chunks into a direct buffer, and numbers, booleans,
+ * ISO dates and enum constants are decoded straight from the bytes, so no
+ * <code>String</code> or <code>String[]</code> is created for them. Only fields
+ * that really are text (names, flight numbers, etc.) become strings.
+ * <p>
+ * Usage: call {@link #nextRecord()} to move to the next line, then read its
+ * fields in order with the <code>next...</code> methods.
+ */
+public class RecordReader implements Closeable {
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final String source;
+    private final ReadableByteChannel channel;
+    private ByteBuffer buf;
+    private boolean eof;
+
+    private int pos;        // start of the next unread field
+    private int lineEnd;    // end of the current record (exclusive, without line terminator)
+    private int next;       // start of the record after the current one
+    private int lineNumber;
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Opens a reader over a data file.
+     *
+     * @param file the file to read
+     * @throws IOException if the file cannot be opened
+     */
+    public RecordReader(File file) throws IOException {
+        this(file.getPath(), FileChannel.open(file.toPath(), StandardOpenOption.READ));
+    }
+
+    /**
+     * Creates a reader that pulls chunks from the given channel.
+     *
+     * @param source  a name for the data, used in error messages
+     * @param channel the channel to read from
+     */
+    public RecordReader(String source, ReadableByteChannel channel) {
+        this.source = source;
+        this.channel = channel;
+        this.buf = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        this.buf.limit(0);
+    }
+
+    /**
+     * Creates a reader over bytes that are already in memory, such as a mapped
+     * region of a file. The records are read from the buffer's position to its limit.
+     *
+     * @param source a name for the data, used in error messages
+     * @param buffer the bytes to read
+     */
+    public RecordReader(String source, ByteBuffer buffer) {
+        this.source = source;
+        this.channel = null;
+        this.buf = buffer.slice();
+        this.eof = true;
+    }
+
+    /**
+     * Moves to the next non-empty record.
+     *
+     * @return true if a record is available, false at the end of the data
+     * @throws IOException if reading from the channel fails
+     */
+    public boolean nextRecord() throws IOException {
+        pos = next;
+        while (true) {
+            int newline = indexOf('\n', pos);
+            if (newline < 0) {
+                if (fill()) continue;
+                if (pos >= buf.limit()) return false;
+                newline = buf.limit();
+            }
+            lineNumber++;
+            next = newline + 1;
+            lineEnd = newline;
+            if (lineEnd > pos && buf.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > pos) {
+                return true;
+            }
+            pos = next;
+        }
+    }
+
+    /**
+     * Reads the next field as an <code>int</code>, accepting what
+     * <code>Integer.parseInt</code> accepts, including a leading '+'.
+     *
+     * @return the parsed value
+     * @throws IOException if the field is not a valid integer
+     */
+    public int nextInt() throws IOException {
+        int end = fieldEnd();
+        int i = pos;
+        boolean negative = i < end && buf.get(i) == '-';
+        if (negative || (i < end && buf.get(i) == '+')) i++;
+        if (i == end) throw malformed("integer");
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) throw malformed("integer");
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw malformed("integer");
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw malformed("integer");
+        skipField(end);
+        return (int) value;
+    }
+
+    /**
+     * Reads the next field as a <code>double</code>. Plain decimal values such as
+     * prices are converted exactly without allocation; anything else (exponents,
+     * very long mantissas, NaN) falls back to <code>Double.parseDouble</code>.
+     *
+     * @return the parsed value
+     * @throws IOException if the field is not a valid number
+     */
+    public double nextDouble() throws IOException {
+        int end = fieldEnd();
+        int i = pos;
+        boolean negative = i < end && buf.get(i) == '-';
+        if (negative || (i < end && buf.get(i) == '+')) i++;
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        boolean fastPath = i < end;
+        for (; i < end && fastPath; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (digits > 0 || b != '0') digits++;
+                mantissa = mantissa * 10 + (b - '0');
+                if (seenPoint) scale++;
+                fastPath = digits <= 15;
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                fastPath = false;
+            }
+        }
+
+        double value;
+        // A lone "." is left to parseDouble, which rejects it
+        if (fastPath && seenDigit && scale < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[scale];
+            if (negative) value = -value;
+        } else {
+            try {
+                value = Double.parseDouble(text(pos, end));
+            } catch (NumberFormatException ex) {
+                throw malformed("number");
+            }
+        }
+        skipField(end);
+        return value;
+    }
+
+    /**
+     * Reads the next field as a <code>boolean</code>, following
+     * <code>Boolean.parseBoolean</code>: only "true" (ignoring case) is true.
+     *
+     * @return the parsed value
+     */
+    public boolean nextBoolean() {
+        int end = fieldEnd();
+        boolean value = end - pos == 4
+            && (buf.get(pos) | 0x20) == 't'
+            && (buf.get(pos + 1) | 0x20) == 'r'
+            && (buf.get(pos + 2) | 0x20) == 'u'
+            && (buf.get(pos + 3) | 0x20) == 'e';
+        skipField(end);
+        return value;
+    }
+
+    /**
+     * Reads the next field as an ISO-8601 date (<code>yyyy-MM-dd</code>).
+     *
+     * @return the parsed date
+     * @throws IOException if the field is not a valid date
+     */
+    public LocalDate nextDate() throws IOException {
+        int end = fieldEnd();
+        try {
+            if (end - pos == 10 && buf.get(pos + 4) == '-' && buf.get(pos + 7) == '-') {
+                LocalDate date = LocalDate.of(digits(pos, 4), digits(pos + 5, 2), digits(pos + 8, 2));
+                skipField(end);
+                return date;
+            }
+            LocalDate date = LocalDate.parse(text(pos, end));
+            skipField(end);
+            return date;
+        } catch (RuntimeException ex) {
+            throw malformed("date");
+        }
+    }
+
+    /**
+     * Reads the next field as one of the given enum constants, matching the
+     * constant's name exactly like <code>Enum.valueOf</code>.
+     *
+     * @param values the constants to choose from, e.g. <code>SeatType.values()</code>
+     * @param <E>    the enum type
+     * @return the matching constant
+     * @throws IOException if the field does not name any of the constants
+     */
+    public <E extends Enum<E>> E nextEnum(E[] values) throws IOException {
+        int end = fieldEnd();
+        int length = end - pos;
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() != length) continue;
+            int i = 0;
+            while (i < length && buf.get(pos + i) == name.charAt(i)) i++;
+            if (i == length) {
+                skipField(end);
+                return value;
+            }
+        }
+        throw malformed("enum constant");
+    }
+
+    /**
+     * Reads the next field as text.
+     *
+     * @return the field value
+     */
+    public String nextString() {
+        int end = fieldEnd();
+        String value = text(pos, end);
+        skipField(end);
+        return value;
+    }
+
+    /**
+     * Returns the line number of the current record.
+     *
+     * @return the 1-based line number
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Closes the underlying channel, if any.
+     *
+     * @throws IOException if closing fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Reads another chunk from the channel, keeping the unread part of the
+     * buffer (from <code>pos</code>) and growing it if a single record is
+     * larger than the buffer.
+     *
+     * @return true if more bytes were read
+     */
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        buf.position(pos);
+        buf.compact();
+        if (!buf.hasRemaining()) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(buf.capacity() * 2);
+            buf.flip();
+            bigger.put(buf);
+            buf = bigger;
+        }
+        int read = channel.read(buf);
+        buf.flip();
+        next -= pos;
+        pos = 0;
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from) {
+        int limit = buf.limit();
+        for (int i = from; i < limit; i++) {
+            if (buf.get(i) == c) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the end of the current field: the next "::" or the end of the record.
+     */
+    private int fieldEnd() {
+        for (int i = pos; i < lineEnd - 1; i++) {
+            if (buf.get(i) == ':' && buf.get(i + 1) == ':') return i;
+        }
+        return lineEnd;
+    }
+
+    private void skipField(int end) {
+        pos = end < lineEnd ? end + 2 : lineEnd;
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = buf.get(i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException();
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private String text(int from, int to) {
+        int length = to - from;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buf.get(from + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private IOException malformed(String expected) {
+        return new IOException("Expected " + expected + " in " + source + " at line " + lineNumber
+            + ": \"" + text(pos, fieldEnd()) + "\"");
+    }
+}
@@ -2,14 +2,12 @@ package bcu.cmp5332.bookingsystem.gui;
 
 import bcu.cmp5332.bookingsystem.commands.AddCustomer;
 import bcu.cmp5332.bookingsystem.commands.Command;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 
 /**
  * A GUI window that allows a user to create a new Customer record by entering
@@ -62,7 +60,7 @@ public class AddCustomerWindow extends JFrame implements ActionListener {
      * Responds to button clicks:
      * <ul>
      *   <li><strong>Add</strong>: Reads field inputs, executes {@link AddCustomer} to create the customer,
-     *       attempts to auto-save, and closes the window if successful.</li>
+     *       which journals the change, and closes the window if successful.</li>
      *   <li><strong>Cancel</strong>: Simply closes this window.</li>
      * </ul>
      *
@@ -78,16 +76,6 @@ public class AddCustomerWindow extends JFrame implements ActionListener {
             Command addCustomerCmd = new AddCustomer(name, phone, email);
             addCustomerCmd.execute(fbs);
 
-            // Attempt auto-save
-            try {
-                FlightBookingSystemData.store(fbs);
-            } catch (IOException ioe) {
-                JOptionPane.showMessageDialog(this,
-                    "Customer added, but saving to file failed.\n" + ioe.getMessage(),
-                    "Save Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-
             JOptionPane.showMessageDialog(this, "Customer added successfully!");
             setVisible(false);
 
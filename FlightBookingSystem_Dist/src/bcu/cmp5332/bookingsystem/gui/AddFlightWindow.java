@@ -2,14 +2,12 @@ package bcu.cmp5332.bookingsystem.gui;
 
 import bcu.cmp5332.bookingsystem.commands.AddFlight;
 import bcu.cmp5332.bookingsystem.commands.Command;
-import bcu.cmp5332.bookingsystem.data.FlightBookingSystemData;
 import bcu.cmp5332.bookingsystem.main.FlightBookingSystemException;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 
@@ -100,7 +98,7 @@ public class AddFlightWindow extends JFrame implements ActionListener {
 
     /**
      * Reads user input fields, validates them, and invokes the {@link AddFlight} command
-     * to create a new flight. Also attempts to auto-save the system state.
+     * to create a new flight. The command itself journals the change.
      */
     private void addFlight() {
         try {
@@ -150,16 +148,6 @@ public class AddFlightWindow extends JFrame implements ActionListener {
             );
             addFlightCmd.execute(mw.getFlightBookingSystem());
 
-            // Attempt auto-save
-            try {
-                FlightBookingSystemData.store(mw.getFlightBookingSystem());
-            } catch (IOException ioe) {
-                JOptionPane.showMessageDialog(this,
-                    "Flight added, but saving to file failed.\n" + ioe.getMessage(),
-                    "Save Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
-
             // Refresh the flight list in MainWindow
             mw.displayFlights();
             // Close this window
@@ -3,6 +3,7 @@ package bcu.cmp5332.bookingsystem.gui;
 import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.Flight;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.SeatType;
 
 import javax.swing.*;
 import java.awt.*;
@@ -53,7 +54,7 @@ public class AdminReportsWindow extends JFrame {
         }
 
         Flight mostBooked = fbs.getFlights().stream()
-            .max(Comparator.comparingInt(f -> f.getPassengers().size()))
+            .max(Comparator.comparingInt(Flight::getPassengerCount))
             .orElse(null);
 
         StringBuilder sb = new StringBuilder();
@@ -62,10 +63,15 @@ public class AdminReportsWindow extends JFrame {
         sb.append("Total Active Customers: ").append(fbs.getCustomers().size()).append("\n");
         sb.append("Total Bookings: ").append(allBookings.size()).append("\n");
         sb.append(String.format("Total Revenue: $%.2f\n", totalRevenue));
+        sb.append("Unsold Seats on Upcoming Flights:");
+        for (SeatType seatType : SeatType.values()) {
+            sb.append(" ").append(seatType).append(" ").append(fbs.countUpcomingSeats(seatType));
+        }
+        sb.append("\n");
 
         if (mostBooked != null) {
             sb.append("Most Booked Flight: ").append(mostBooked.getFlightNumber())
-              .append(" with ").append(mostBooked.getPassengers().size()).append(" passengers.\n");
+              .append(" with ").append(mostBooked.getPassengerCount()).append(" passengers.\n");
         } else {
             sb.append("No flights have passengers yet.\n");
         }
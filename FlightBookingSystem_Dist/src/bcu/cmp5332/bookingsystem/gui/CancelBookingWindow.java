@@ -8,7 +8,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 
 /**
  * A GUI window that allows a user to cancel an existing booking by
@@ -66,14 +65,6 @@ public class CancelBookingWindow extends JFrame implements ActionListener {
                 CancelBooking cmd = new CancelBooking(custId, fltId);
                 cmd.execute(fbs);
 
-                try {
-                    bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.store(fbs);
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(this,
-                        "Booking canceled, but saving failed: " + ex.getMessage(),
-                        "Save Error", JOptionPane.ERROR_MESSAGE);
-                }
-
                 JOptionPane.showMessageDialog(this, "Booking canceled successfully!");
                 setVisible(false);
 
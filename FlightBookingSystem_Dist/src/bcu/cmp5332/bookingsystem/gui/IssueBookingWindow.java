@@ -11,7 +11,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 
 /**
  * A window that lets a user issue a new booking by specifying a customer ID,
@@ -90,15 +89,6 @@ public class IssueBookingWindow extends JFrame implements ActionListener {
                 AddBooking cmd = new AddBooking(custId, fltId, seatType, foodOpt);
                 cmd.execute(fbs);
 
-                // Attempt auto-save
-                try {
-                    bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.store(fbs);
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(this,
-                        "Booking issued, but saving failed: " + ex.getMessage(),
-                        "Save Error", JOptionPane.ERROR_MESSAGE);
-                }
-
                 JOptionPane.showMessageDialog(this, "Booking issued successfully!");
                 setVisible(false);
 
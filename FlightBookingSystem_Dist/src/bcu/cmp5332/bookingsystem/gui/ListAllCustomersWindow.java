@@ -4,43 +4,120 @@ import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 /**
  * A window that displays a table of all non-deleted customers
  * (ID, Name, Phone, Email, Booking count).
+ * <p>
+ * Typing in the search field narrows the table to the customers whose name
+ * starts with the text. Each search runs on a background thread so typing
+ * never waits for it, and a search overtaken by further typing is discarded.
  */
 public class ListAllCustomersWindow extends JFrame {
     private static final long serialVersionUID = 1L;
 
+    // The most matches shown while searching
+    private static final int SEARCH_LIMIT = 200;
+
+    private final FlightBookingSystem fbs;
+    private final JTextField searchField = new JTextField(20);
+    private final DefaultTableModel tableModel = new DefaultTableModel(
+        new Object[] {"ID", "Name", "Phone", "Email", "Booking Count"}, 0);
+    private SwingWorker<List<Customer>, Void> search;
+
     /**
      * Constructs a new ListAllCustomersWindow, showing all active customers in a table.
      *
      * @param fbs the flight booking system
      */
     public ListAllCustomersWindow(FlightBookingSystem fbs) {
+        this.fbs = fbs;
         setTitle("List of All Customers");
         setSize(600, 400);
 
-        List<Customer> customers = fbs.getCustomers();
-        String[] columnNames = {"ID", "Name", "Phone", "Email", "Booking Count"};
-        Object[][] data = new Object[customers.size()][5];
-
-        for (int i = 0; i < customers.size(); i++) {
-            Customer c = customers.get(i);
-            data[i][0] = c.getId();
-            data[i][1] = c.getName();
-            data[i][2] = c.getPhone();
-            data[i][3] = c.getEmail();
-            data[i][4] = c.getBookings().size();  // Show how many bookings they have
-        }
+        JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        searchPanel.add(new JLabel("Search name:"));
+        searchPanel.add(searchField);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                startSearch();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                startSearch();
+            }
 
-        JTable table = new JTable(data, columnNames);
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                startSearch();
+            }
+        });
+
+        showCustomers(fbs.getCustomers());
+
+        JTable table = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(table);
 
+        add(searchPanel, BorderLayout.NORTH);
         add(scrollPane, BorderLayout.CENTER);
         setLocationRelativeTo(null);
         setVisible(true);
     }
+
+    /**
+     * Replaces any search in progress with one for the current text. A blank
+     * field shows every customer again.
+     */
+    private void startSearch() {
+        if (search != null) {
+            search.cancel(true);
+            search = null;
+        }
+        String prefix = searchField.getText().trim();
+        if (prefix.isEmpty()) {
+            showCustomers(fbs.getCustomers());
+            return;
+        }
+        search = new SwingWorker<List<Customer>, Void>() {
+            @Override
+            protected List<Customer> doInBackground() {
+                return fbs.searchCustomers(prefix, SEARCH_LIMIT);
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || search != this) {
+                    return;
+                }
+                try {
+                    showCustomers(get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    JOptionPane.showMessageDialog(ListAllCustomersWindow.this,
+                        "Error: " + ex.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        search.execute();
+    }
+
+    private void showCustomers(List<Customer> customers) {
+        tableModel.setRowCount(0);
+        for (Customer c : customers) {
+            tableModel.addRow(new Object[] {
+                c.getId(),
+                c.getName(),
+                c.getPhone(),
+                c.getEmail(),
+                c.getBookings().size()  // Show how many bookings they have
+            });
+        }
+    }
 }
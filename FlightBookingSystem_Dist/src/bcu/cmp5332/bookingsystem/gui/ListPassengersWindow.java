@@ -2,11 +2,11 @@ package bcu.cmp5332.bookingsystem.gui;
 
 import bcu.cmp5332.bookingsystem.model.Customer;
 import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * A window that displays all passengers (customers) assigned to a specific Flight.
@@ -17,16 +17,15 @@ public class ListPassengersWindow extends JFrame {
     /**
      * Constructs a window listing passengers for the given flight.
      *
+     * @param fbs    the flight booking system the passengers are looked up in
      * @param flight the flight whose passengers are to be listed
      */
-    public ListPassengersWindow(Flight flight) {
+    public ListPassengersWindow(FlightBookingSystem fbs, Flight flight) {
         setTitle("Passengers for Flight " + flight.getFlightNumber());
         setSize(400, 300);
 
-        // If you're on Java 16+, you can do:
-        // List<Customer> passengers = flight.getPassengers().stream().toList();
-        List<Customer> passengers = flight.getPassengers().stream()
-                .collect(Collectors.toList());
+        // The flight only keeps customer IDs; look the customers up now
+        List<Customer> passengers = fbs.getPassengers(flight);
 
         String[] columnNames = {"ID", "Name", "Phone", "Email"};
         Object[][] data = new Object[passengers.size()][4];
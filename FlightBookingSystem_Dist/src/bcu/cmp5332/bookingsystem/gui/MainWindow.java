@@ -176,7 +176,7 @@ public class MainWindow extends JFrame implements ActionListener {
             try {
                 int flightId = Integer.parseInt(input);
                 Flight flight = fbs.getFlightById(flightId);
-                new ListPassengersWindow(flight);
+                new ListPassengersWindow(fbs, flight);
             } catch (Exception e) {
                 JOptionPane.showMessageDialog(this, "Invalid Flight ID!", "Error", JOptionPane.ERROR_MESSAGE);
             }
@@ -243,10 +243,10 @@ public class MainWindow extends JFrame implements ActionListener {
     }
 
     /**
-     * Displays all non-deleted flights in a table for quick viewing.
+     * Displays all upcoming non-deleted flights in a table for quick viewing.
      */
     public void displayFlights() {
-        List<Flight> flightsList = fbs.getFlights();
+        List<Flight> flightsList = fbs.getUpcomingFlights();
 
         String[] columns = {"ID", "Flight No", "Origin", "Destination",
             "Departure", "Econ", "Biz", "First", "BasePrice"};
@@ -10,7 +10,6 @@ import java.awt.event.ActionListener;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * A window that allows users to search for flights based on optional
@@ -69,7 +68,7 @@ public class SearchFlightsWindow extends JFrame implements ActionListener {
     }
 
     /**
-     * Gathers the criteria from user input, parses dates, and filters flights accordingly.
+     * Gathers the criteria from user input, parses dates, and searches the flight index.
      * Displays the results in a modal dialog.
      */
     private void doSearch() {
@@ -79,19 +78,16 @@ public class SearchFlightsWindow extends JFrame implements ActionListener {
             String startStr = startDateField.getText().trim();
             String endStr = endDateField.getText().trim();
 
-            LocalDate startDate = startStr.isEmpty() ? LocalDate.MIN : LocalDate.parse(startStr);
-            LocalDate endDate = endStr.isEmpty() ? LocalDate.MAX : LocalDate.parse(endStr);
+            LocalDate startDate = startStr.isEmpty() ? null : LocalDate.parse(startStr);
+            LocalDate endDate = endStr.isEmpty() ? null : LocalDate.parse(endStr);
 
-            List<Flight> flights = fbs.getFlights().stream()
-                .filter(f -> origin.isEmpty() || f.getOrigin().equalsIgnoreCase(origin))
-                .filter(f -> destination.isEmpty() || f.getDestination().equalsIgnoreCase(destination))
-                .filter(f -> !f.getDepartureDate().isBefore(startDate))
-                .filter(f -> !f.getDepartureDate().isAfter(endDate))
-                .collect(Collectors.toList());
+            List<Flight> flights = fbs.searchFlights(origin, destination, startDate, endDate);
 
             displayResults(flights);
         } catch (DateTimeParseException dtpe) {
             JOptionPane.showMessageDialog(this, "Invalid date format. Use YYYY-MM-DD.", "Error", JOptionPane.ERROR_MESSAGE);
+        } catch (IllegalArgumentException iae) {
+            JOptionPane.showMessageDialog(this, iae.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
 
@@ -6,6 +6,7 @@ import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -57,15 +58,15 @@ public class ShowBookingsWindow extends JFrame {
         setTitle("Bookings for " + customer.getName());
         setSize(700, 400);
 
-        List<Booking> bookings = customer.getBookings();
+        Collection<Booking> bookings = customer.getBookings();
         String[] columnNames = {
             "Booking ID", "Flight #", "Seat Type", "Food Option",
             "Price", "Fee", "Booked On"
         };
         Object[][] data = new Object[bookings.size()][7];
 
-        for (int i = 0; i < bookings.size(); i++) {
-            Booking b = bookings.get(i);
+        int i = 0;
+        for (Booking b : bookings) {
             data[i][0] = b.getBookingId();
             data[i][1] = b.getFlight().getFlightNumber();
             data[i][2] = b.getSeatType();
@@ -73,6 +74,7 @@ public class ShowBookingsWindow extends JFrame {
             data[i][4] = b.getBookingPrice();
             data[i][5] = b.getFee();
             data[i][6] = b.getBookingDate();
+            i++;
         }
 
         JTable table = new JTable(data, columnNames);
@@ -10,7 +10,6 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.IOException;
 
 /**
  * A window that allows updating a booking to a new flight, optionally changing the seat type.
@@ -82,15 +81,6 @@ public class UpdateBookingWindow extends JFrame implements ActionListener {
                 EditBooking cmd = new EditBooking(bookingId, newFltId, newSeatType);
                 cmd.execute(fbs);
 
-                // Auto-save
-                try {
-                    bcu.cmp5332.bookingsystem.data.FlightBookingSystemData.store(fbs);
-                } catch (IOException ex) {
-                    JOptionPane.showMessageDialog(this,
-                        "Booking updated, but saving failed: " + ex.getMessage(),
-                        "Save Error", JOptionPane.ERROR_MESSAGE);
-                }
-
                 JOptionPane.showMessageDialog(this, "Booking updated successfully!");
                 setVisible(false);
 
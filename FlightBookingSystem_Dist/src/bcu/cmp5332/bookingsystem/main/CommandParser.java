@@ -46,6 +46,16 @@ public class CommandParser {
             case "listcustomers":
                 return new ListCustomers();
 
+            case "findcustomer": {
+                // The value is the rest of the line, so phone numbers may contain spaces
+                String field = scanner.hasNext() ? scanner.next().toLowerCase() : "";
+                String value = scanner.hasNextLine() ? scanner.nextLine().trim() : "";
+                if (value.isEmpty() || !(field.equals("email") || field.equals("phone")))
+                    throw new IllegalArgumentException("Usage: findcustomer email [email] | findcustomer phone [phone]");
+                return new FindCustomer(field.equals("email")
+                    ? FindCustomer.Field.EMAIL : FindCustomer.Field.PHONE, value);
+            }
+
             /**
              * Updated addflight usage:
              * addflight [flightNumber] [origin] [destination] [date] [econCap] [bizCap] [firstCap] [basePrice]
@@ -170,6 +180,18 @@ public class CommandParser {
                                 throw new IllegalArgumentException("Invalid date. Use YYYY-MM-DD.");
                             }
                             return new ListBookingsDate(parsedDate);
+                        case "range":
+                            if (!scanner.hasNext())
+                                throw new IllegalArgumentException("Usage: listbookings range [YYYY-MM-DD] [YYYY-MM-DD]");
+                            String fromParam = scanner.next();
+                            if (!scanner.hasNext())
+                                throw new IllegalArgumentException("Usage: listbookings range [YYYY-MM-DD] [YYYY-MM-DD]");
+                            String toParam = scanner.next();
+                            try {
+                                return new ListBookingsRange(LocalDate.parse(fromParam), LocalDate.parse(toParam));
+                            } catch (DateTimeParseException e) {
+                                throw new IllegalArgumentException("Invalid date. Use YYYY-MM-DD.");
+                            }
                         case "customer":
                             if (!scanner.hasNextInt())
                                 throw new IllegalArgumentException("Usage: listbookings customer [customer id]");
@@ -180,6 +202,28 @@ public class CommandParser {
                     }
                 }
 
+            case "searchflights": {
+                // All criteria are optional; "*" skips one to give a later one
+                String[] criteria = new String[4];
+                for (int i = 0; i < criteria.length && scanner.hasNext(); i++) {
+                    String value = scanner.next();
+                    criteria[i] = value.equals("*") ? null : value;
+                }
+                try {
+                    return new SearchFlights(criteria[0], criteria[1],
+                        criteria[2] == null ? null : LocalDate.parse(criteria[2]),
+                        criteria[3] == null ? null : LocalDate.parse(criteria[3]));
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid date. Use YYYY-MM-DD.");
+                }
+            }
+
+            case "snapshot":
+                return new StoreSnapshot();
+
+            case "flush":
+                return new Flush();
+
             case "loadgui":
                 return new LoadGUI();
 
@@ -203,6 +247,8 @@ public class CommandParser {
         System.out.println("Available commands:");
         System.out.println("listflights                               print all upcoming flights (only future flights are shown)");
         System.out.println("listcustomers                             print all customers");
+        System.out.println("findcustomer email [email]                find a customer by email address");
+        System.out.println("findcustomer phone [phone]                find a customer by phone number");
         System.out.println("addflight [flightNumber] [origin] [destination] [date] [econCap] [bizCap] [firstCap] [basePrice]");
         System.out.println("addcustomer [name] [phone] [email]");
         System.out.println("deleteflight [flight id]                  soft-delete a flight");
@@ -215,7 +261,11 @@ public class CommandParser {
         System.out.println("listbookings                              list all bookings");
         System.out.println("   listbookings flight [flight id]        list bookings for a specific flight");
         System.out.println("   listbookings date [yyyy-mm-dd]         list bookings made on a specific date");
+        System.out.println("   listbookings range [from] [to]         list bookings made between two dates");
         System.out.println("   listbookings customer [customer id]    list bookings for a specific customer");
+        System.out.println("searchflights [origin] [dest] [from] [to] search flights; use * for any");
+        System.out.println("snapshot                                  write a binary snapshot for fast start-up");
+        System.out.println("flush                                     wait until all changes are written to disk");
         System.out.println("loadgui                                   loads the GUI version of the app");
         System.out.println("help                                      prints this help message");
         System.out.println("exit                                      exits the program");
@@ -13,6 +13,8 @@ import java.io.InputStreamReader;
  * <p>
  * This class loads the system data, starts a console loop for reading commands,
  * and exits upon user request or error. The current state is saved upon exit.
+ * Changes are persisted in the background while the program runs, and a
+ * shutdown hook makes sure they are all on disk however the program ends.
  */
 public class Main {
 
@@ -33,6 +35,7 @@ public class Main {
             System.err.println("Error loading system data: " + ex.getMessage());
             return;
         }
+        Runtime.getRuntime().addShutdownHook(new Thread(Main::flushOnShutdown, "persistence-shutdown"));
 
         BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
         String input;
@@ -43,11 +46,13 @@ public class Main {
         try {
             while (true) {
                 System.out.print("> ");
-                input = reader.readLine().trim();
+                input = reader.readLine();
 
-                if (input.equalsIgnoreCase("exit")) {
+                // End of input is treated like "exit"
+                if (input == null || input.trim().equalsIgnoreCase("exit")) {
                     break;
                 }
+                input = input.trim();
 
                 try {
                     Command command = CommandParser.parse(input);
@@ -65,4 +70,17 @@ public class Main {
             System.err.println("Error: " + ex.getMessage());
         }
     }
+
+    /**
+     * Writes out any changes still being persisted in the background.
+     * Runs as a shutdown hook, so it cannot report failures to the user
+     * other than on the console.
+     */
+    private static void flushOnShutdown() {
+        try {
+            FlightBookingSystemData.flush();
+        } catch (IOException ex) {
+            System.err.println("Error writing pending changes: " + ex.getMessage());
+        }
+    }
 }
@@ -9,8 +9,6 @@ import java.time.LocalDate;
 public class Booking implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private static int nextBookingId = 1;
-
     private final int bookingId;
     private final Customer customer;
     private Flight flight;
@@ -48,10 +46,27 @@ public class Booking implements Serializable {
      * @param bookingDate  the date on which the booking is made
      */
     public Booking(Customer customer, Flight flight, LocalDate bookingDate) {
-        this.bookingId = nextBookingId++;
+        this.bookingId = IdAllocator.of(EntityType.BOOKING).next();
+        this.customer = customer;
+        this.flight = flight;
+        this.bookingDate = bookingDate;
+    }
+
+    /**
+     * Constructor for loading a <code>Booking</code> from storage, keeping the
+     * stored booking ID. The ID is reserved so that it is never handed out to a new booking.
+     *
+     * @param bookingId    the booking ID loaded from file
+     * @param customer     the customer making the booking
+     * @param flight       the flight being booked
+     * @param bookingDate  the date on which the booking is made
+     */
+    public Booking(int bookingId, Customer customer, Flight flight, LocalDate bookingDate) {
+        this.bookingId = bookingId;
         this.customer = customer;
         this.flight = flight;
         this.bookingDate = bookingDate;
+        IdAllocator.of(EntityType.BOOKING).observe(bookingId);
     }
 
     /**
@@ -82,7 +97,9 @@ public class Booking implements Serializable {
     }
 
     /**
-     * Sets a different <code>Flight</code> for this booking (e.g. for rebooking).
+     * Sets a different <code>Flight</code> for this booking. Once the booking has been
+     * added to the system, rebook it with {@link FlightBookingSystem#moveBooking} instead,
+     * so the flights' bookings stay up to date.
      *
      * @param flight the new flight
      */
@@ -100,7 +117,9 @@ public class Booking implements Serializable {
     }
 
     /**
-     * Sets a different booking date (if needed).
+     * Sets a different booking date. Once the booking has been added to the
+     * system, change it with {@link FlightBookingSystem#changeBookingDate} instead,
+     * so the date index stays up to date.
      *
      * @param bookingDate the new booking date
      */
@@ -118,7 +137,8 @@ public class Booking implements Serializable {
     }
 
     /**
-     * Sets or changes the seat type for this booking (e.g. from ECONOMY to BUSINESS).
+     * Sets the seat type for this booking. Once the booking has been added to the
+     * system, change it with {@link FlightBookingSystem#moveBooking} instead.
      *
      * @param seatType the new seat type
      */
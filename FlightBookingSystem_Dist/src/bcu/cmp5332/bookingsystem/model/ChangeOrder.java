@@ -0,0 +1,55 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.util.TreeSet;
+
+/**
+ * Hands out tickets in the order transactions first change a system, and lets
+ * each transaction wait for its turn to journal its changes.
+ * <p>
+ * A transaction takes its ticket before its first change becomes visible, so
+ * any transaction that sees that change, and then changes the system itself,
+ * takes a later ticket. Journaling in ticket order therefore never writes an
+ * entry before an entry it depends on.
+ */
+class ChangeOrder implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long next = 1;
+    // Tickets whose transaction has neither journaled nor finished.
+    private final TreeSet<Long> open = new TreeSet<>();
+
+    /**
+     * Takes the next ticket.
+     *
+     * @return the ticket
+     */
+    synchronized long enter() {
+        long ticket = next++;
+        open.add(ticket);
+        return ticket;
+    }
+
+    /**
+     * Waits until every earlier ticket has left.
+     *
+     * @param ticket a ticket taken by {@link #enter}
+     * @throws InterruptedException if interrupted while waiting
+     */
+    synchronized void awaitTurn(long ticket) throws InterruptedException {
+        while (open.first() != ticket) {
+            wait();
+        }
+    }
+
+    /**
+     * Gives up a ticket, letting later tickets have their turn.
+     *
+     * @param ticket a ticket taken by {@link #enter}
+     */
+    synchronized void leave(long ticket) {
+        if (open.remove(ticket)) {
+            notifyAll();
+        }
+    }
+}
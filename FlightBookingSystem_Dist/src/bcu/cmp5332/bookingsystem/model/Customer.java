@@ -1,25 +1,32 @@
 package bcu.cmp5332.bookingsystem.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a customer in the booking system.
- * Uses an auto-incrementing static counter for unique customer IDs.
+ * Unique customer IDs come from the customer {@link IdAllocator}.
+ * <p>
+ * Bookings are indexed by booking ID, in the order they were added, and by
+ * flight ID, so adding, finding and cancelling one does not depend on how many
+ * bookings the customer holds.
  */
 public class Customer implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    // Static counter for generating unique customer IDs.
-    private static int nextCustomerId = 1;
-
     // Unique customer ID.
     private final int id;
     private final String name;
     private final String phone;
     private final String email;
-    private final List<Booking> bookings = new ArrayList<>();
+    private final Map<Integer, Booking> bookings = new LinkedHashMap<>();
+    private final Map<Integer, Set<Booking>> bookingsByFlight = new HashMap<>();
 
     // Soft deletion flag.
     private boolean deleted = false;
@@ -33,7 +40,7 @@ public class Customer implements Serializable {
      * @param email the customer's email address
      */
     public Customer(String name, String phone, String email) {
-        this.id = nextCustomerId++;
+        this.id = IdAllocator.of(EntityType.CUSTOMER).next();
         this.name = name;
         this.phone = phone;
         this.email = email;
@@ -41,7 +48,7 @@ public class Customer implements Serializable {
 
     /**
      * Constructor for loading a Customer from storage.
-     * Updates the static counter if necessary.
+     * The ID is reserved so that it is never handed out to a new customer.
      *
      * @param id      the customer ID loaded from file
      * @param name    the customer's name
@@ -55,9 +62,7 @@ public class Customer implements Serializable {
         this.phone = phone;
         this.email = email;
         this.deleted = deleted;
-        if (id >= nextCustomerId) {
-            nextCustomerId = id + 1;
-        }
+        IdAllocator.of(EntityType.CUSTOMER).observe(id);
     }
 
     /**
@@ -97,34 +102,100 @@ public class Customer implements Serializable {
     }
 
     /**
-     * Returns a list of all bookings made by this customer.
+     * Returns all bookings made by this customer, in the order they were added.
+     *
+     * @return a read-only view of the bookings
+     */
+    public Collection<Booking> getBookings() {
+        return Collections.unmodifiableCollection(bookings.values());
+    }
+
+    /**
+     * Returns this customer's bookings on one flight, in the order they were added.
      *
-     * @return the list of bookings
+     * @param flight the flight
+     * @return a read-only view of the bookings on that flight
      */
-    public List<Booking> getBookings() {
-        return bookings;
+    public Collection<Booking> getBookings(Flight flight) {
+        Set<Booking> flightBookings = bookingsByFlight.get(flight.getId());
+        return flightBookings == null ? Collections.<Booking>emptySet() : Collections.unmodifiableSet(flightBookings);
     }
 
     /**
-     * Adds a booking to this customer.
+     * Returns one of this customer's bookings.
+     *
+     * @param bookingId the booking ID
+     * @return the booking, or null if the customer holds no booking with that ID
+     */
+    public Booking getBooking(int bookingId) {
+        return bookings.get(bookingId);
+    }
+
+    /**
+     * Adds a booking to this customer. Called through
+     * {@link FlightBookingSystem#addBooking} so the booking index stays up to date.
      *
      * @param booking the booking to add.
      * @throws IllegalArgumentException if the booking already exists.
      */
-    public void addBooking(Booking booking) {
-        if (bookings.contains(booking)) {
+    void addBooking(Booking booking) {
+        if (bookings.containsKey(booking.getBookingId())) {
             throw new IllegalArgumentException("Booking already exists for this customer.");
         }
-        bookings.add(booking);
+        bookings.put(booking.getBookingId(), booking);
+        linkFlight(booking);
     }
 
     /**
-     * Cancels (removes) a booking for the given flight.
+     * Cancels (removes) a booking for the given flight. Called through
+     * {@link FlightBookingSystem#cancelBookingsForFlight} so the booking index stays up to date.
      *
      * @param flight the flight to cancel booking for.
      */
-    public void cancelBookingForFlight(Flight flight) {
-        bookings.removeIf(booking -> booking.getFlight().equals(flight));
+    void cancelBookingForFlight(Flight flight) {
+        Set<Booking> flightBookings = bookingsByFlight.remove(flight.getId());
+        if (flightBookings != null) {
+            for (Booking booking : flightBookings) {
+                bookings.remove(booking.getBookingId());
+            }
+        }
+    }
+
+    /**
+     * Removes a single booking. Used to undo {@link #addBooking} within a {@link Transaction}.
+     *
+     * @param booking the booking to remove
+     */
+    void removeBooking(Booking booking) {
+        if (bookings.get(booking.getBookingId()) == booking) {
+            bookings.remove(booking.getBookingId());
+            unlinkFlight(booking, booking.getFlight());
+        }
+    }
+
+    /**
+     * Re-files a booking under its new flight after it has been moved. Called by
+     * {@link FlightBookingSystem#moveBooking}.
+     *
+     * @param booking  a booking whose flight has changed
+     * @param previous the flight it was on before
+     */
+    void bookingMoved(Booking booking, Flight previous) {
+        if (bookings.get(booking.getBookingId()) == booking) {
+            unlinkFlight(booking, previous);
+            linkFlight(booking);
+        }
+    }
+
+    private void linkFlight(Booking booking) {
+        bookingsByFlight.computeIfAbsent(booking.getFlight().getId(), id -> new LinkedHashSet<>()).add(booking);
+    }
+
+    private void unlinkFlight(Booking booking, Flight flight) {
+        Set<Booking> flightBookings = bookingsByFlight.get(flight.getId());
+        if (flightBookings != null && flightBookings.remove(booking) && flightBookings.isEmpty()) {
+            bookingsByFlight.remove(flight.getId());
+        }
     }
 
     /**
@@ -144,7 +215,7 @@ public class Customer implements Serializable {
     public String getDetailsLong() {
         StringBuilder sb = new StringBuilder();
         sb.append(getDetailsShort()).append("\nBookings:\n");
-        for (Booking booking : bookings) {
+        for (Booking booking : bookings.values()) {
             sb.append(" * ").append(booking.getDetailsShort()).append("\n");
         }
         return sb.toString();
@@ -160,11 +231,12 @@ public class Customer implements Serializable {
     }
 
     /**
-     * Marks or unmarks the customer as deleted.
+     * Marks or unmarks the customer as deleted. Called through
+     * {@link FlightBookingSystem#setCustomerDeleted} so the cached lists stay up to date.
      *
      * @param deleted true to mark as deleted, false to restore
      */
-    public void setDeleted(boolean deleted) {
+    void setDeleted(boolean deleted) {
         this.deleted = deleted;
     }
 }
@@ -0,0 +1,115 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An index of customers by email address and by phone number, used by
+ * {@link FlightBookingSystem#findCustomerByEmail} and
+ * {@link FlightBookingSystem#findCustomerByPhone}.
+ * <p>
+ * Both are normalized before they are filed or looked up: emails ignore case
+ * and surrounding spaces, and phone numbers keep only their digits, so
+ * "+44 (0)121-555 0101" and "440121 5550101" are the same number. Deleted
+ * customers stay filed, and data written before duplicates were refused may
+ * hold several customers under one key, so each key keeps every customer in
+ * the order they were added.
+ */
+class CustomerContactIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, List<Customer>> byEmail = new HashMap<>();
+    private final Map<String, List<Customer>> byPhone = new HashMap<>();
+
+    /**
+     * Files a customer under their email and phone number.
+     *
+     * @param customer the customer to add
+     */
+    void add(Customer customer) {
+        file(byEmail, normalizeEmail(customer.getEmail()), customer);
+        file(byPhone, normalizePhone(customer.getPhone()), customer);
+    }
+
+    /**
+     * Removes a customer from both indexes.
+     *
+     * @param customer the customer to remove
+     */
+    void remove(Customer customer) {
+        unfile(byEmail, normalizeEmail(customer.getEmail()), customer);
+        unfile(byPhone, normalizePhone(customer.getPhone()), customer);
+    }
+
+    /**
+     * Returns the first non-deleted customer with an email address.
+     *
+     * @param email the email address, in any case
+     * @return the customer, or null if there is none
+     */
+    Customer findByEmail(String email) {
+        return firstActive(byEmail.get(normalizeEmail(email)));
+    }
+
+    /**
+     * Returns the first non-deleted customer with a phone number.
+     *
+     * @param phone the phone number, in any format
+     * @return the customer, or null if there is none
+     */
+    Customer findByPhone(String phone) {
+        return firstActive(byPhone.get(normalizePhone(phone)));
+    }
+
+    private static void file(Map<String, List<Customer>> index, String key, Customer customer) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(customer);
+        }
+    }
+
+    private static void unfile(Map<String, List<Customer>> index, String key, Customer customer) {
+        List<Customer> filed = key == null ? null : index.get(key);
+        if (filed != null && filed.remove(customer) && filed.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static Customer firstActive(List<Customer> filed) {
+        if (filed != null) {
+            for (Customer customer : filed) {
+                if (!customer.isDeleted()) {
+                    return customer;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the key an email is filed under, or null if it is blank.
+     */
+    private static String normalizeEmail(String email) {
+        if (email == null) return null;
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    /**
+     * Returns the key a phone number is filed under, or null if it has no digits.
+     */
+    private static String normalizePhone(String phone) {
+        if (phone == null) return null;
+        StringBuilder key = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                key.append(c);
+            }
+        }
+        return key.length() == 0 ? null : key.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A sorted index of customer names, used by {@link FlightBookingSystem#searchCustomers}
+ * for type-ahead search.
+ * <p>
+ * Each customer is filed under their whole name and under the rest of it from
+ * every later word, so "mary ann smith" is also found by "ann" and "smi". Names
+ * are matched ignoring case and surrounding spaces. A prefix is answered by one
+ * range scan that stops after the requested number of matches, so the time it
+ * takes depends on that number rather than on how many customers there are.
+ * <p>
+ * Searches may run off the event dispatch thread while customers are added, so
+ * every method is synchronized.
+ */
+class CustomerNameIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final NavigableMap<String, List<Customer>> byName = new TreeMap<>();
+
+    /**
+     * Files a customer under their name.
+     *
+     * @param customer the customer to add
+     */
+    synchronized void add(Customer customer) {
+        for (String key : keys(customer.getName())) {
+            byName.computeIfAbsent(key, k -> new ArrayList<>(1)).add(customer);
+        }
+    }
+
+    /**
+     * Removes a customer from the index.
+     *
+     * @param customer the customer to remove
+     */
+    synchronized void remove(Customer customer) {
+        for (String key : keys(customer.getName())) {
+            List<Customer> filed = byName.get(key);
+            if (filed != null && filed.remove(customer) && filed.isEmpty()) {
+                byName.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Finds the non-deleted customers with a name, or a word of their name,
+     * starting with a prefix, in alphabetical order of the matched text.
+     *
+     * @param prefix the prefix to match, in any case; blank matches everyone
+     * @param limit  the most customers to return
+     * @return up to <code>limit</code> matching customers, each at most once
+     */
+    synchronized List<Customer> find(String prefix, int limit) {
+        String start = normalize(prefix);
+        Set<Customer> results = new LinkedHashSet<>();
+        for (Map.Entry<String, List<Customer>> entry : byName.tailMap(start, true).entrySet()) {
+            if (!entry.getKey().startsWith(start)) {
+                break;
+            }
+            for (Customer customer : entry.getValue()) {
+                if (!customer.isDeleted() && results.add(customer) && results.size() == limit) {
+                    return new ArrayList<>(results);
+                }
+            }
+        }
+        return new ArrayList<>(results);
+    }
+
+    private static List<String> keys(String name) {
+        String normalized = normalize(name);
+        List<String> keys = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            if (i + 1 < normalized.length() && normalized.charAt(i + 1) != ' ') {
+                keys.add(normalized.substring(i + 1));
+            }
+        }
+        return keys;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT);
+    }
+}
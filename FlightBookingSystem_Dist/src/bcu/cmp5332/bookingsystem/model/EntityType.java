@@ -0,0 +1,22 @@
+package bcu.cmp5332.bookingsystem.model;
+
+/**
+ * An enumeration of the kinds of entity held by the <code>FlightBookingSystem</code>,
+ * each of which is persisted to its own data file.
+ */
+public enum EntityType {
+    /**
+     * Flights, including their remaining seat capacities.
+     */
+    FLIGHT,
+
+    /**
+     * Customers and their contact details.
+     */
+    CUSTOMER,
+
+    /**
+     * Bookings linking customers to flights.
+     */
+    BOOKING
+}
@@ -2,8 +2,15 @@ package bcu.cmp5332.bookingsystem.model;
 
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * Represents a flight in the booking system, with seat capacities for multiple seat types.
@@ -11,36 +18,35 @@ import java.util.Set;
 public class Flight implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    private static int nextFlightId = 1;
-
     private final int id;
     private final String flightNumber;
     private final String origin;
     private final String destination;
-    private final LocalDate departureDate;
 
     /**
-     * The number of seats available in Economy class.
+     * The number of seats available in each class, at <code>seatBase</code> plus the
+     * {@link SeatType} ordinal. While the flight is in a {@link FlightInventory} this
+     * is the inventory's table; otherwise it is the flight's own three counters.
+     * Changed only by compare-and-set, so a class never goes below zero.
      */
-    private int econCapacity;
+    private AtomicIntegerArray seats;
+    private int seatBase;
 
-    /**
-     * The number of seats available in Business class.
-     */
-    private int businessCapacity;
+    // The inventory holding this flight's seats, departure, price and deleted flag,
+    // and its slot there
+    private FlightInventory inventory;
+    private int slot;
+    // The same departure, price and deleted flag while the flight is in no
+    // inventory; null while it is, so they are never held twice
+    private Unattached unattached;
 
-    /**
-     * The number of seats available in First class.
-     */
-    private int firstCapacity;
-
-    /**
-     * The base price for an Economy seat. Business/First might apply multipliers.
-     */
-    private final double basePrice;
-    private boolean deleted = false;
+    // Passengers by customer ID, with the seats each holds per class
+    private final PassengerRoster passengers = new PassengerRoster();
 
-    private final Set<Customer> passengers = new HashSet<>();
+    // The bookings on this flight by seat class, each in the order they were made,
+    // or null until the first booking. Maintained by FlightBookingSystem as
+    // bookings are added, cancelled and moved.
+    private Map<SeatType, Set<Booking>> bookings;
 
     /**
      * Constructor for creating a new <code>Flight</code>, assigning a unique ID automatically.
@@ -58,20 +64,17 @@ public class Flight implements Serializable {
     public Flight(String flightNumber, String origin, String destination,
                   LocalDate departureDate, int econCap, int bizCap, int firstCap,
                   double basePrice) {
-        this.id = nextFlightId++;
+        this.id = IdAllocator.of(EntityType.FLIGHT).next();
         this.flightNumber = flightNumber;
         this.origin = origin;
         this.destination = destination;
-        this.departureDate = departureDate;
-        this.econCapacity = econCap;
-        this.businessCapacity = bizCap;
-        this.firstCapacity = firstCap;
-        this.basePrice = basePrice;
+        this.seats = newSeats(econCap, bizCap, firstCap);
+        this.unattached = new Unattached(departureDate, basePrice, false);
     }
 
     /**
      * Constructor for loading a Flight from file, specifying all fields explicitly.
-     * Updates the static counter if necessary.
+     * The ID is reserved so that it is never handed out to a new flight.
      *
      * @param id             the flight ID loaded from file
      * @param flightNumber   the flight number
@@ -91,15 +94,9 @@ public class Flight implements Serializable {
         this.flightNumber = flightNumber;
         this.origin = origin;
         this.destination = destination;
-        this.departureDate = departureDate;
-        this.econCapacity = econCap;
-        this.businessCapacity = bizCap;
-        this.firstCapacity = firstCap;
-        this.basePrice = basePrice;
-        this.deleted = deleted;
-        if (id >= nextFlightId) {
-            nextFlightId = id + 1;
-        }
+        this.seats = newSeats(econCap, bizCap, firstCap);
+        this.unattached = new Unattached(departureDate, basePrice, deleted);
+        IdAllocator.of(EntityType.FLIGHT).observe(id);
     }
 
     public int getId() {
@@ -119,7 +116,7 @@ public class Flight implements Serializable {
     }
 
     public LocalDate getDepartureDate() {
-        return departureDate;
+        return inventory != null ? inventory.getDepartureDate(slot) : unattached.departureDate;
     }
 
     /**
@@ -129,37 +126,224 @@ public class Flight implements Serializable {
      * @return the base price
      */
     public double getBasePrice() {
-        return basePrice;
+        return inventory != null ? inventory.getBasePrice(slot) : unattached.basePrice;
     }
 
     public int getEconCapacity() {
-        return econCapacity;
+        return getSeats(SeatType.ECONOMY);
     }
 
     public int getBusinessCapacity() {
-        return businessCapacity;
+        return getSeats(SeatType.BUSINESS);
     }
 
     public int getFirstCapacity() {
-        return firstCapacity;
+        return getSeats(SeatType.FIRST);
     }
 
     public boolean isDeleted() {
-        return deleted;
+        return inventory != null ? inventory.isDeleted(slot) : unattached.deleted;
     }
 
-    public void setDeleted(boolean deleted) {
-        this.deleted = deleted;
+    /**
+     * Marks or unmarks the flight as deleted. Called through
+     * {@link FlightBookingSystem#setFlightDeleted} so the cached flight lists stay up to date.
+     *
+     * @param deleted true to mark as deleted, false to restore
+     */
+    void setDeleted(boolean deleted) {
+        if (inventory != null) {
+            inventory.setDeleted(slot, deleted);
+        } else {
+            unattached.deleted = deleted;
+        }
     }
 
     /**
-     * Returns the set of <code>Customer</code> passengers on this flight.
-     * This set grows each time a customer is added; removing them does not restore seat capacity automatically.
+     * Moves this flight's seats, departure, price and deleted flag into an
+     * inventory slot. Called by {@link FlightInventory}, which has already copied
+     * them there. The slot and its seat table stay the same until the flight is
+     * removed.
      *
-     * @return the set of customers currently on this flight
+     * @param inventory the inventory
+     * @param slot      the flight's slot in it
+     * @param seats     the inventory's seat table holding the slot
+     * @param seatBase  where the slot's seats start in that table
+     */
+    void attach(FlightInventory inventory, int slot, AtomicIntegerArray seats, int seatBase) {
+        this.inventory = inventory;
+        this.slot = slot;
+        this.seats = seats;
+        this.seatBase = seatBase;
+        this.unattached = null;
+    }
+
+    /**
+     * Takes this flight's seats, departure, price and deleted flag back from its
+     * inventory. Called by {@link FlightInventory} when the flight is removed
+     * from the system, before it clears the slot.
      */
-    public Set<Customer> getPassengers() {
-        return passengers;
+    void detach() {
+        Unattached own = new Unattached(getDepartureDate(), getBasePrice(), isDeleted());
+        this.seats = newSeats(getEconCapacity(), getBusinessCapacity(), getFirstCapacity());
+        this.seatBase = 0;
+        this.unattached = own;
+        this.inventory = null;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    private static AtomicIntegerArray newSeats(int econ, int business, int first) {
+        AtomicIntegerArray seats = new AtomicIntegerArray(SeatType.values().length);
+        seats.set(SeatType.ECONOMY.ordinal(), econ);
+        seats.set(SeatType.BUSINESS.ordinal(), business);
+        seats.set(SeatType.FIRST.ordinal(), first);
+        return seats;
+    }
+
+    private int getSeats(SeatType seatType) {
+        return seats.get(seatBase + seatType.ordinal());
+    }
+
+    /**
+     * Takes seats in one class if that many are left, atomically: however many
+     * threads reserve at once, the class never goes below zero. No lock is taken.
+     *
+     * @param seatType the seat class
+     * @param count    the number of seats to take
+     * @return true if the seats were taken, false if too few are left
+     */
+    public boolean tryReserve(SeatType seatType, int count) {
+        int index = seatBase + seatType.ordinal();
+        while (true) {
+            int left = seats.get(index);
+            if (left < count) {
+                return false;
+            }
+            if (seats.compareAndSet(index, left, left - count)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back seats taken by {@link #tryReserve} or {@link #addPassenger}.
+     *
+     * @param seatType the seat class
+     * @param count    the number of seats to give back
+     */
+    public void release(SeatType seatType, int count) {
+        seats.addAndGet(seatBase + seatType.ordinal(), count);
+    }
+
+    /**
+     * Returns the customer IDs of the passengers on this flight, in ascending order.
+     * Use {@link FlightBookingSystem#getPassengers(Flight)} to list the customers.
+     *
+     * @return a new array of passenger customer IDs
+     */
+    public int[] getPassengerIds() {
+        return passengers.ids();
+    }
+
+    /**
+     * Returns the number of distinct passengers on this flight. A customer holding
+     * several seats counts once.
+     *
+     * @return the passenger count
+     */
+    public int getPassengerCount() {
+        return passengers.size();
+    }
+
+    /**
+     * Returns the number of seats held by passengers in one class.
+     *
+     * @param seatType the seat class
+     * @return the seats held in that class
+     */
+    public int getPassengerCount(SeatType seatType) {
+        return passengers.seatsIn(seatType);
+    }
+
+    /**
+     * Checks whether a customer is a passenger on this flight.
+     *
+     * @param customer the customer
+     * @return true if they hold at least one seat
+     */
+    public boolean hasPassenger(Customer customer) {
+        return passengers.contains(customer.getId());
+    }
+
+    /**
+     * Returns the number of seats a customer holds in one class on this flight.
+     *
+     * @param customer the customer
+     * @param seatType the seat class
+     * @return the seats held, 0 if they are not a passenger
+     */
+    public int getSeatsHeld(Customer customer, SeatType seatType) {
+        return passengers.seatsHeld(customer.getId(), seatType);
+    }
+
+    /**
+     * Returns the bookings on this flight, grouped by seat class (economy first)
+     * and in the order they were made within each class.
+     *
+     * @return a new list of this flight's bookings
+     */
+    public List<Booking> getBookings() {
+        if (bookings == null) {
+            return new ArrayList<>();
+        }
+        int count = 0;
+        for (Set<Booking> seatBookings : bookings.values()) {
+            count += seatBookings.size();
+        }
+        List<Booking> result = new ArrayList<>(count);
+        for (Set<Booking> seatBookings : bookings.values()) {
+            result.addAll(seatBookings);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the bookings on this flight in one seat class, in the order they were made.
+     *
+     * @param seatType the seat class
+     * @return a read-only view of the bookings in that class
+     */
+    public Collection<Booking> getBookings(SeatType seatType) {
+        Set<Booking> seatBookings = bookings == null ? null : bookings.get(seatType);
+        return seatBookings == null ? Collections.<Booking>emptySet() : Collections.unmodifiableSet(seatBookings);
+    }
+
+    /**
+     * Indexes a booking under its seat class. Called by {@link FlightBookingSystem}.
+     *
+     * @param booking a booking for this flight
+     */
+    void addBooking(Booking booking) {
+        if (bookings == null) {
+            bookings = new EnumMap<>(SeatType.class);
+        }
+        bookings.computeIfAbsent(booking.getSeatType(), seatType -> new LinkedHashSet<>()).add(booking);
+    }
+
+    /**
+     * Removes a booking from the index. Called by {@link FlightBookingSystem}
+     * before the booking is cancelled or moved.
+     *
+     * @param booking a booking for this flight
+     */
+    void removeBooking(Booking booking) {
+        Set<Booking> seatBookings = bookings == null ? null : bookings.get(booking.getSeatType());
+        if (seatBookings != null) {
+            seatBookings.remove(booking);
+        }
     }
 
     /**
@@ -169,15 +353,7 @@ public class Flight implements Serializable {
      * @return true if no seats left in the specified seat type
      */
     public boolean isFull(SeatType seatType) {
-        switch (seatType) {
-            case ECONOMY:
-                return econCapacity <= 0;
-            case BUSINESS:
-                return businessCapacity <= 0;
-            case FIRST:
-                return firstCapacity <= 0;
-        }
-        return true;
+        return getSeats(seatType) <= 0;
     }
 
     /**
@@ -188,21 +364,32 @@ public class Flight implements Serializable {
      * @throws IllegalStateException if the flight is full in that seat class
      */
     public void addPassenger(Customer customer, SeatType seatType) {
-        if (isFull(seatType)) {
+        if (!tryReserve(seatType, 1)) {
             throw new IllegalStateException("No seats available in " + seatType + " class.");
         }
-        switch (seatType) {
-            case ECONOMY:
-                econCapacity--;
-                break;
-            case BUSINESS:
-                businessCapacity--;
-                break;
-            case FIRST:
-                firstCapacity--;
-                break;
-        }
-        passengers.add(customer);
+        passengers.add(customer.getId(), seatType);
+    }
+
+    /**
+     * Records a customer as holding a seat without consuming one. Used when loading
+     * bookings whose seats are already reflected in the stored capacities.
+     *
+     * @param customer the customer to add
+     * @param seatType the class of the seat they hold
+     */
+    public void linkPassenger(Customer customer, SeatType seatType) {
+        passengers.add(customer.getId(), seatType);
+    }
+
+    /**
+     * Drops one seat in a class held by a customer, removing them from the
+     * passengers once they hold none. Seat capacity is unchanged.
+     *
+     * @param customer the passenger
+     * @param seatType the class of the seat
+     */
+    public void unlinkPassenger(Customer customer, SeatType seatType) {
+        passengers.removeOne(customer.getId(), seatType);
     }
 
     /**
@@ -212,7 +399,17 @@ public class Flight implements Serializable {
      * @param customer the customer to remove
      */
     public void removePassenger(Customer customer) {
-        passengers.remove(customer);
+        passengers.removeAll(customer.getId());
+    }
+
+    /**
+     * Replaces this flight's passengers with a copy of another flight's. Used by
+     * {@link FlightBookingSystem#copy()}, where customer IDs are the same.
+     *
+     * @param other the flight to copy passengers from
+     */
+    void copyPassengers(Flight other) {
+        passengers.copyFrom(other.passengers);
     }
 
     /**
@@ -223,11 +420,31 @@ public class Flight implements Serializable {
     public String getDetailsShort() {
         return "Flight #" + id + ": " + flightNumber +
                " from " + origin + " to " + destination +
-               " on " + departureDate +
-               " | Econ: " + econCapacity +
-               " | Biz: " + businessCapacity +
-               " | First: " + firstCapacity +
-               " | BasePrice: $" + basePrice +
-               (deleted ? " [DELETED]" : "");
+               " on " + getDepartureDate() +
+               " | Econ: " + getEconCapacity() +
+               " | Biz: " + getBusinessCapacity() +
+               " | First: " + getFirstCapacity() +
+               " | BasePrice: $" + getBasePrice() +
+               (isDeleted() ? " [DELETED]" : "");
+    }
+
+    /**
+     * The state a flight keeps itself only while it is in no inventory.
+     */
+    private static class Unattached implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final LocalDate departureDate;
+        /**
+         * The base price for an Economy seat. Business/First might apply multipliers.
+         */
+        private final double basePrice;
+        private boolean deleted;
+
+        Unattached(LocalDate departureDate, double basePrice, boolean deleted) {
+            this.departureDate = departureDate;
+            this.basePrice = basePrice;
+            this.deleted = deleted;
+        }
     }
 }
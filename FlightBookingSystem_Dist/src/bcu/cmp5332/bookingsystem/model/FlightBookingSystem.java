@@ -3,19 +3,62 @@ package bcu.cmp5332.bookingsystem.model;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 /**
  * The core Flight Booking System, managing flights, customers, and bookings.
+ * <p>
+ * Seats can be sold and bookings changed from several threads at once: each
+ * flight's seats and passengers are guarded by one of a set of striped locks,
+ * so sales on different flights run in parallel, and the booking indexes and
+ * customers' booking lists are updated under a short lock of their own. Adding
+ * flights and customers, deleting them, and the list views are not thread-safe
+ * and must not run alongside other changes.
+ * <p>
+ * Every open {@link Transaction} shares a lock that the data layer takes
+ * exclusively, through {@link #exclusiveLock()}, to copy or store the system
+ * between transactions rather than half way through one.
  */
 public class FlightBookingSystem implements Serializable {
     private static final long serialVersionUID = 1L;
 
-    // Maps to store customers and flights by unique ID.
-    private final Map<Integer, Customer> customers = new HashMap<>();
-    private final Map<Integer, Flight> flights = new HashMap<>();
+    // Maps to store customers and flights by unique ID, keyed by unboxed int.
+    private final IntMap<Customer> customers = new IntMap<>();
+    private final IntMap<Flight> flights = new IntMap<>();
+    // Every customer's bookings, by booking ID.
+    private final IntMap<Booking> bookings = new IntMap<>();
+    // The same bookings by booking date, each date's in the order they were added.
+    private final NavigableMap<LocalDate, Set<Booking>> bookingsByDate = new TreeMap<>();
+    // Flights by route and departure date, for searches.
+    private final FlightSearchIndex flightSearch = new FlightSearchIndex();
+    // Customers by normalized email and phone number, for lookups and duplicate checks.
+    private final CustomerContactIndex customerContacts = new CustomerContactIndex();
+    // Customers by name, for type-ahead search.
+    private final CustomerNameIndex customerNames = new CustomerNameIndex();
+    // Remaining seats and deleted flags of every flight, for fleet-wide scans.
+    private final FlightInventory inventory = new FlightInventory();
+    // Guard each flight's seats and passengers; the bookings map guards the booking indexes.
+    private final FlightLocks flightLocks = new FlightLocks();
+    // Shared by open transactions, exclusive while the system is copied or stored.
+    private final ReentrantReadWriteLock transactionLock = new ReentrantReadWriteLock();
+    // The order transactions first changed the system in, which they journal in.
+    private final ChangeOrder changeOrder = new ChangeOrder();
     private LocalDate systemDate = LocalDate.now();
 
+    // Entity sets changed since the data files were last written; guarded by itself,
+    // as commands on different threads mark it.
+    private final Set<EntityType> dirty = EnumSet.noneOf(EntityType.class);
+
+    // Read-only lists handed out by the getters, rebuilt on first use after a
+    // change and shared by every caller until the next one; null when stale.
+    private transient List<Flight> allFlightsView;
+    private transient List<Flight> activeFlightsView;
+    private transient List<Customer> allCustomersView;
+    private transient List<Customer> activeCustomersView;
+    private transient List<Booking> activeBookingsView;
+
     /**
      * Gets the current system-wide date. Used to determine upcoming flights.
      *
@@ -27,6 +70,8 @@ public class FlightBookingSystem implements Serializable {
 
     /**
      * Sets the system-wide date, which influences "upcoming flights" calculations.
+     * Upcoming flights are read as a tail of the date-ordered flight index, so
+     * moving the date needs no recalculation.
      *
      * @param systemDate the new system date
      */
@@ -35,30 +80,122 @@ public class FlightBookingSystem implements Serializable {
     }
 
     /**
-     * Returns a list of all non-deleted customers.
+     * Records that the given entity sets have changed and need to be persisted.
+     *
+     * @param types the entity sets that changed
+     */
+    public void markDirty(EntityType... types) {
+        synchronized (dirty) {
+            dirty.addAll(Arrays.asList(types));
+        }
+    }
+
+    /**
+     * Checks whether an entity set has changed since the last {@link #clearDirty()}.
+     *
+     * @param type the entity set to check
+     * @return true if it has unsaved changes
+     */
+    public boolean isDirty(EntityType type) {
+        synchronized (dirty) {
+            return dirty.contains(type);
+        }
+    }
+
+    /**
+     * Checks whether anything has changed since the last {@link #clearDirty()}.
+     *
+     * @return true if any entity set has unsaved changes
+     */
+    public boolean isDirty() {
+        synchronized (dirty) {
+            return !dirty.isEmpty();
+        }
+    }
+
+    /**
+     * Marks every entity set as saved. Called once all data files have been written.
+     */
+    public void clearDirty() {
+        synchronized (dirty) {
+            dirty.clear();
+        }
+    }
+
+    /**
+     * Returns a list of all non-deleted customers. The list is read-only and is
+     * shared between calls until a customer is added or (un)deleted.
      *
      * @return list of customers
      */
     public List<Customer> getCustomers() {
-        return customers.values().stream()
-                .filter(c -> !c.isDeleted())
-                .collect(Collectors.toList());
+        if (activeCustomersView == null) {
+            activeCustomersView = Collections.unmodifiableList(customers.values().stream()
+                    .filter(c -> !c.isDeleted())
+                    .collect(Collectors.toList()));
+        }
+        return activeCustomersView;
     }
 
     /**
-     * Returns all customers, including soft-deleted ones.
+     * Returns all customers, including soft-deleted ones. The list is read-only
+     * and is shared between calls until a customer is added.
      *
      * @return list of all customers
      */
     public List<Customer> getAllCustomers() {
-        return new ArrayList<>(customers.values());
+        if (allCustomersView == null) {
+            allCustomersView = Collections.unmodifiableList(new ArrayList<>(customers.values()));
+        }
+        return allCustomersView;
     }
 
     public Customer getCustomerById(int id) {
-        if (!customers.containsKey(id)) {
+        Customer customer = customers.get(id);
+        if (customer == null) {
             throw new IllegalArgumentException("Customer ID " + id + " not found.");
         }
-        return customers.get(id);
+        return customer;
+    }
+
+    /**
+     * Finds the customer with an email address, ignoring case and surrounding
+     * spaces. Soft-deleted customers are not found.
+     *
+     * @param email the email address to look up
+     * @return the customer, or null if no active customer has that email
+     */
+    public Customer findCustomerByEmail(String email) {
+        return customerContacts.findByEmail(email);
+    }
+
+    /**
+     * Finds the customer with a phone number, comparing only its digits.
+     * Soft-deleted customers are not found.
+     *
+     * @param phone the phone number to look up
+     * @return the customer, or null if no active customer has that number
+     */
+    public Customer findCustomerByPhone(String phone) {
+        return customerContacts.findByPhone(phone);
+    }
+
+    /**
+     * Finds active customers whose name, or a word of it, starts with a prefix,
+     * ignoring case. Only as many index entries as needed for <code>limit</code>
+     * matches are visited, so this is fast enough to run on every keystroke, and
+     * it may run on a background thread while customers are added.
+     *
+     * @param prefix the start of the name; blank matches every customer
+     * @param limit  the most customers to return
+     * @return up to <code>limit</code> customers, in alphabetical order of the matched name
+     * @throws IllegalArgumentException if the limit is not positive
+     */
+    public List<Customer> searchCustomers(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive: " + limit);
+        }
+        return customerNames.find(prefix, limit);
     }
 
     /**
@@ -73,33 +210,56 @@ public class FlightBookingSystem implements Serializable {
             throw new IllegalArgumentException("Customer ID already exists: " + customer.getId());
         }
         customers.put(customer.getId(), customer);
+        customerContacts.add(customer);
+        customerNames.add(customer);
+        customersChanged();
+    }
+
+    /**
+     * Soft-deletes or restores a customer.
+     *
+     * @param customer the customer to change
+     * @param deleted  true to mark as deleted, false to restore
+     */
+    public void setCustomerDeleted(Customer customer, boolean deleted) {
+        customer.setDeleted(deleted);
+        customersChanged();
     }
 
     /**
-     * Returns a list of all non-deleted flights.
+     * Returns a list of all non-deleted flights. The list is read-only and is
+     * shared between calls until a flight is added or (un)deleted.
      *
      * @return list of flights
      */
     public List<Flight> getFlights() {
-        return flights.values().stream()
-                .filter(f -> !f.isDeleted())
-                .collect(Collectors.toList());
+        if (activeFlightsView == null) {
+            activeFlightsView = Collections.unmodifiableList(flights.values().stream()
+                    .filter(f -> !f.isDeleted())
+                    .collect(Collectors.toList()));
+        }
+        return activeFlightsView;
     }
 
     /**
-     * Returns all flights, including soft-deleted ones.
+     * Returns all flights, including soft-deleted ones. The list is read-only
+     * and is shared between calls until a flight is added.
      *
      * @return list of all flights
      */
     public List<Flight> getAllFlights() {
-        return new ArrayList<>(flights.values());
+        if (allFlightsView == null) {
+            allFlightsView = Collections.unmodifiableList(new ArrayList<>(flights.values()));
+        }
+        return allFlightsView;
     }
 
     public Flight getFlightById(int id) {
-        if (!flights.containsKey(id)) {
+        Flight flight = flights.get(id);
+        if (flight == null) {
             throw new IllegalArgumentException("Flight ID " + id + " not found.");
         }
-        return flights.get(id);
+        return flight;
     }
 
     /**
@@ -114,48 +274,478 @@ public class FlightBookingSystem implements Serializable {
             throw new IllegalArgumentException("Flight ID already exists: " + flight.getId());
         }
         flights.put(flight.getId(), flight);
+        flightSearch.add(flight);
+        inventory.add(flight);
+        flightsChanged();
     }
 
     /**
-     * Returns a list of upcoming flights (departure date after systemDate).
+     * Soft-deletes or restores a flight.
+     *
+     * @param flight  the flight to change
+     * @param deleted true to mark as deleted, false to restore
+     */
+    public void setFlightDeleted(Flight flight, boolean deleted) {
+        flight.setDeleted(deleted);
+        flightsChanged();
+    }
+
+    /**
+     * Searches the non-deleted flights by route and departure date. Any criterion
+     * may be left out. Origins and destinations match ignoring case, and both
+     * dates are inclusive. The search uses a route index, so its cost depends on
+     * the number of matches rather than the number of flights.
+     *
+     * @param origin      the origin to match, or null/blank for any
+     * @param destination the destination to match, or null/blank for any
+     * @param from        the earliest departure date, or null for no limit
+     * @param to          the latest departure date, or null for no limit
+     * @return the matching flights in departure date order
+     * @throws IllegalArgumentException if <code>from</code> is after <code>to</code>.
+     */
+    public List<Flight> searchFlights(String origin, String destination, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date " + from + " is after end date " + to + ".");
+        }
+        List<Flight> results = flightSearch.find(origin, destination, from, to);
+        results.removeIf(Flight::isDeleted);
+        return results;
+    }
+
+    /**
+     * Removes a flight added by {@link #addFlight}. Flights are otherwise only
+     * soft-deleted; this is used to undo an addition within a {@link Transaction}.
+     *
+     * @param flight the flight to remove
+     */
+    void removeFlight(Flight flight) {
+        flights.remove(flight.getId());
+        flightSearch.remove(flight);
+        inventory.remove(flight);
+        flightsChanged();
+    }
+
+    /**
+     * Removes a customer added by {@link #addCustomer}. Customers are otherwise only
+     * soft-deleted; this is used to undo an addition within a {@link Transaction}.
+     *
+     * @param customer the customer to remove
+     */
+    void removeCustomer(Customer customer) {
+        customers.remove(customer.getId());
+        customerContacts.remove(customer);
+        customerNames.remove(customer);
+        customersChanged();
+    }
+
+    /**
+     * Starts a transaction. Changes made through it can be rolled back as a unit,
+     * e.g. when the change cannot be persisted. Waits while {@link #exclusiveLock()}
+     * is held.
+     *
+     * @return a new transaction on this system, to be finished on this thread
+     */
+    public Transaction beginTransaction() {
+        Lock shared = transactionLock.readLock();
+        shared.lock();
+        return new Transaction(this, shared, changeOrder);
+    }
+
+    /**
+     * Returns the lock that keeps transactions out. Acquiring it waits for every
+     * open transaction to finish, and no new one begins until it is released, so
+     * the system is not half way through any change while it is held. It must
+     * not be acquired by a thread with a transaction open.
+     *
+     * @return the exclusive side of the transaction lock
+     */
+    public Lock exclusiveLock() {
+        return transactionLock.writeLock();
+    }
+
+    /**
+     * Returns a deep copy of this system. Flights, customers and bookings are new
+     * objects with the same IDs and state, so the copy can be written out on
+     * another thread while this system keeps changing. The copy starts with no
+     * dirty entity sets.
+     * <p>
+     * The bookings are copied under the booking index lock and each flight's
+     * passengers under its flight lock, so concurrent seat sales cannot break the
+     * copy. For a consistent point-in-time view, call it while holding
+     * {@link #exclusiveLock()}.
+     *
+     * @return an independent copy of this system
+     */
+    public FlightBookingSystem copy() {
+        FlightBookingSystem copy = new FlightBookingSystem();
+        copy.systemDate = systemDate;
+        for (Flight f : flights.values()) {
+            copy.addFlight(new Flight(f.getId(), f.getFlightNumber(), f.getOrigin(),
+                f.getDestination(), f.getDepartureDate(), f.getEconCapacity(), f.getBusinessCapacity(),
+                f.getFirstCapacity(), f.getBasePrice(), f.isDeleted()));
+        }
+        for (Customer c : customers.values()) {
+            copy.addCustomer(new Customer(c.getId(), c.getName(), c.getPhone(), c.getEmail(), c.isDeleted()));
+        }
+        synchronized (bookings) {
+            copyBookings(copy);
+        }
+        for (Flight f : flights.values()) {
+            Lock lock = flightLock(f);
+            lock.lock();
+            try {
+                copy.flights.get(f.getId()).copyPassengers(f);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return copy;
+    }
+
+    private void copyBookings(FlightBookingSystem copy) {
+        for (Customer c : customers.values()) {
+            Customer customer = copy.customers.get(c.getId());
+            for (Booking b : c.getBookings()) {
+                Booking booking = new Booking(b.getBookingId(), customer,
+                    copy.flights.get(b.getFlight().getId()), b.getBookingDate());
+                booking.setSeatType(b.getSeatType());
+                booking.setFoodOption(b.getFoodOption());
+                booking.setBookingPrice(b.getBookingPrice());
+                booking.setFee(b.getFee());
+                customer.addBooking(booking);
+                copy.index(booking);
+            }
+        }
+    }
+
+    /**
+     * Returns a list of upcoming flights (departure date after systemDate), in
+     * departure date order. Only flights departing after systemDate are visited.
      *
      * @return list of upcoming flights
      */
     public List<Flight> getUpcomingFlights() {
-        return flights.values().stream()
-                .filter(f -> !f.isDeleted())
-                .filter(f -> f.getDepartureDate().isAfter(systemDate))
-                .collect(Collectors.toList());
+        List<Flight> results = flightSearch.departingAfter(systemDate);
+        results.removeIf(Flight::isDeleted);
+        return results;
+    }
+
+    /**
+     * Returns the customers travelling on a flight, looked up from the flight's
+     * passenger IDs, in ID order.
+     *
+     * @param flight the flight
+     * @return a new list of the flight's passengers
+     */
+    public List<Customer> getPassengers(Flight flight) {
+        int[] ids = flight.getPassengerIds();
+        List<Customer> passengers = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Customer customer = customers.get(id);
+            if (customer != null) {
+                passengers.add(customer);
+            }
+        }
+        return passengers;
     }
 
     /**
-     * Returns all bookings from all non-deleted customers.
+     * Counts the seats still available in one class across all upcoming,
+     * non-deleted flights. Reads the flight inventory table directly, without
+     * visiting the flight objects.
+     *
+     * @param seatType the seat class
+     * @return the number of unsold seats
+     */
+    public long countUpcomingSeats(SeatType seatType) {
+        return inventory.countSeats(seatType, systemDate);
+    }
+
+    /**
+     * Returns all bookings from all non-deleted customers. The list is read-only
+     * and is shared between calls until a booking or customer changes.
      *
      * @return list of all bookings
      */
     public List<Booking> getAllBookings() {
+        if (activeBookingsView == null) {
+            List<Booking> results = new ArrayList<>(bookings.size());
+            for (Customer c : getCustomers()) {
+                results.addAll(c.getBookings());
+            }
+            activeBookingsView = Collections.unmodifiableList(results);
+        }
+        return activeBookingsView;
+    }
+
+    private void flightsChanged() {
+        allFlightsView = null;
+        activeFlightsView = null;
+    }
+
+    private void customersChanged() {
+        allCustomersView = null;
+        activeCustomersView = null;
+        activeBookingsView = null;
+    }
+
+    /**
+     * Sells a seat: takes one seat of the booking's class on its flight, adds the
+     * customer to the passengers and adds the booking. The seat is taken with a
+     * compare-and-set before any lock, so two threads can never sell the last seat
+     * in a class twice and a sold-out class is refused without waiting; only the
+     * passengers and the booking are then updated under the flight's lock.
+     *
+     * @param booking the booking to add; its flight and seat type must be set
+     * @throws IllegalStateException    if the flight is full in that seat class
+     * @throws IllegalArgumentException if the booking ID already exists
+     */
+    public void bookSeat(Booking booking) {
+        Flight flight = booking.getFlight();
+        Customer customer = booking.getCustomer();
+        SeatType seatType = booking.getSeatType();
+        if (!flight.tryReserve(seatType, 1)) {
+            throw new IllegalStateException("No seats available in " + seatType + " class.");
+        }
+        Lock lock = flightLock(flight);
+        lock.lock();
+        try {
+            flight.linkPassenger(customer, seatType);
+            try {
+                addBooking(booking);
+            } catch (RuntimeException ex) {
+                releaseSeat(flight, customer, seatType);
+                throw ex;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes back a seat sold by {@link #bookSeat}, removing the booking and giving
+     * the seat back. Used to undo a sale within a {@link Transaction}.
+     *
+     * @param booking the booking to remove
+     */
+    void unbookSeat(Booking booking) {
+        Flight flight = booking.getFlight();
+        Lock lock = flightLock(flight);
+        lock.lock();
+        try {
+            removeBooking(booking);
+            releaseSeat(flight, booking.getCustomer(), booking.getSeatType());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void releaseSeat(Flight flight, Customer customer, SeatType seatType) {
+        flight.release(seatType, 1);
+        flight.unlinkPassenger(customer, seatType);
+    }
+
+    /**
+     * Returns the lock guarding a flight's seats and passengers. Held while they
+     * are changed outside {@link #bookSeat}, e.g. by a {@link Transaction}.
+     *
+     * @param flight the flight
+     * @return its lock
+     */
+    Lock flightLock(Flight flight) {
+        return flightLocks.lockFor(flight);
+    }
+
+    /**
+     * Adds a booking to its customer, its flight's bookings and the booking index.
+     * The booking's flight and seat type must already be set. No seat is taken;
+     * use {@link #bookSeat} to sell one.
+     *
+     * @param booking the booking to add
+     * @throws IllegalArgumentException if the booking ID already exists.
+     */
+    public void addBooking(Booking booking) {
+        synchronized (bookings) {
+            if (bookings.containsKey(booking.getBookingId())) {
+                throw new IllegalArgumentException("Booking ID already exists: " + booking.getBookingId());
+            }
+            booking.getCustomer().addBooking(booking);
+            index(booking);
+        }
+    }
+
+    /**
+     * Cancels a customer's bookings on a flight, removing them from the customer,
+     * the flight and the booking indexes.
+     *
+     * @param customer the customer whose bookings are cancelled
+     * @param flight   the flight the bookings are for
+     */
+    public void cancelBookingsForFlight(Customer customer, Flight flight) {
+        synchronized (bookings) {
+            for (Booking b : customer.getBookings(flight)) {
+                unindex(b);
+            }
+            customer.cancelBookingForFlight(flight);
+        }
+    }
+
+    /**
+     * Moves a booking to another flight and seat class, keeping the per-flight
+     * bookings up to date. Seat capacity and passengers are not changed.
+     *
+     * @param booking  the booking to move
+     * @param flight   the new flight
+     * @param seatType the new seat class
+     */
+    public void moveBooking(Booking booking, Flight flight, SeatType seatType) {
+        synchronized (bookings) {
+            boolean indexed = bookings.get(booking.getBookingId()) == booking;
+            Flight previous = booking.getFlight();
+            if (indexed) {
+                previous.removeBooking(booking);
+            }
+            booking.setFlight(flight);
+            booking.setSeatType(seatType);
+            booking.getCustomer().bookingMoved(booking, previous);
+            if (indexed) {
+                flight.addBooking(booking);
+            }
+        }
+    }
+
+    /**
+     * Changes the date a booking was made on, keeping the date index up to date.
+     *
+     * @param booking     the booking to change
+     * @param bookingDate the new booking date
+     */
+    public void changeBookingDate(Booking booking, LocalDate bookingDate) {
+        synchronized (bookings) {
+            boolean indexed = bookings.get(booking.getBookingId()) == booking;
+            if (indexed) {
+                removeByDate(booking);
+            }
+            booking.setBookingDate(bookingDate);
+            if (indexed) {
+                bookingsByDate.computeIfAbsent(bookingDate, date -> new LinkedHashSet<>()).add(booking);
+            }
+        }
+    }
+
+    /**
+     * Adds a booking to its flight's bookings and to the ID and date indexes.
+     */
+    private void index(Booking booking) {
+        activeBookingsView = null;
+        booking.getFlight().addBooking(booking);
+        bookings.put(booking.getBookingId(), booking);
+        bookingsByDate.computeIfAbsent(booking.getBookingDate(), date -> new LinkedHashSet<>()).add(booking);
+    }
+
+    /**
+     * Removes a booking from its flight's bookings and from the ID and date indexes.
+     */
+    private void unindex(Booking booking) {
+        activeBookingsView = null;
+        booking.getFlight().removeBooking(booking);
+        bookings.remove(booking.getBookingId());
+        removeByDate(booking);
+    }
+
+    private void removeByDate(Booking booking) {
+        Set<Booking> onDate = bookingsByDate.get(booking.getBookingDate());
+        if (onDate != null && onDate.remove(booking) && onDate.isEmpty()) {
+            bookingsByDate.remove(booking.getBookingDate());
+        }
+    }
+
+    /**
+     * Removes a single booking added by {@link #addBooking}. Used to undo an
+     * addition within a {@link Transaction}.
+     *
+     * @param booking the booking to remove
+     */
+    void removeBooking(Booking booking) {
+        synchronized (bookings) {
+            booking.getCustomer().removeBooking(booking);
+            unindex(booking);
+        }
+    }
+
+    /**
+     * Gives a customer back the bookings cancelled on one flight. Used to undo
+     * {@link #cancelBookingsForFlight} within a {@link Transaction}; the
+     * customer's other bookings, including any added since, are left alone.
+     *
+     * @param customer  the customer whose bookings are restored
+     * @param cancelled the bookings the cancellation removed
+     */
+    void restoreBookings(Customer customer, Collection<Booking> cancelled) {
+        synchronized (bookings) {
+            for (Booking b : cancelled) {
+                if (customer.getBooking(b.getBookingId()) != b) {
+                    customer.addBooking(b);
+                }
+                if (bookings.get(b.getBookingId()) != b) {
+                    index(b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the bookings of non-deleted customers made on the given date.
+     *
+     * @param date the booking date
+     * @return list of bookings made on that date
+     */
+    public List<Booking> getBookingsOn(LocalDate date) {
+        return getBookingsBetween(date, date);
+    }
+
+    /**
+     * Returns the bookings of non-deleted customers made between two dates
+     * (inclusive), in date order. Uses the date index, so the cost depends on
+     * the number of bookings in the range rather than the total.
+     *
+     * @param from the first booking date to include
+     * @param to   the last booking date to include
+     * @return list of bookings made in the range
+     * @throws IllegalArgumentException if <code>from</code> is after <code>to</code>.
+     */
+    public List<Booking> getBookingsBetween(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Start date " + from + " is after end date " + to + ".");
+        }
         List<Booking> results = new ArrayList<>();
-        for (Customer c : getCustomers()) {
-            results.addAll(c.getBookings());
+        synchronized (bookings) {
+            for (Set<Booking> onDate : bookingsByDate.subMap(from, true, to, true).values()) {
+                for (Booking b : onDate) {
+                    if (!b.getCustomer().isDeleted()) {
+                        results.add(b);
+                    }
+                }
+            }
         }
         return results;
     }
 
     /**
-     * Searches for a booking by its unique bookingId.
+     * Looks up a booking by its unique bookingId in the booking index.
      *
      * @param bookingId the booking ID to search for
      * @return the Booking if found
      * @throws IllegalArgumentException if not found.
      */
     public Booking getBookingById(int bookingId) {
-        for (Customer c : customers.values()) {
-            for (Booking b : c.getBookings()) {
-                if (b.getBookingId() == bookingId) {
-                    return b;
-                }
-            }
+        Booking booking;
+        synchronized (bookings) {
+            booking = bookings.get(bookingId);
+        }
+        if (booking == null) {
+            throw new IllegalArgumentException("Booking ID " + bookingId + " not found.");
         }
-        throw new IllegalArgumentException("Booking ID " + bookingId + " not found.");
+        return booking;
     }
 }
@@ -0,0 +1,151 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The seat inventory of every flight in a {@link FlightBookingSystem}, kept in
+ * parallel primitive arrays rather than spread over the flight objects.
+ * <p>
+ * Each flight added to the system is given a slot. While it is attached, its
+ * remaining seats per class, departure date (as an epoch day), base price and
+ * deleted flag live only in this table, and the {@link Flight} reads and writes
+ * them here, reserving seats by compare-and-set on the shared table. Scans over
+ * the whole fleet, such as counting unsold seats, then walk a few contiguous
+ * arrays instead of visiting every flight object.
+ * <p>
+ * The arrays are split into fixed-size chunks. Growing adds a chunk and never
+ * copies one, and a flight keeps its slot until it is removed, so seats can be
+ * reserved while flights are added or removed: no reservation is ever made on
+ * a table that is then replaced. A removed flight's slot is reused by the next
+ * flight added.
+ */
+class FlightInventory implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int SEAT_TYPES = SeatType.values().length;
+    // Slots per chunk; a power of two, so a slot splits into chunk and offset by shifting
+    private static final int CHUNK_BITS = 8;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_BITS;
+
+    private Chunk[] chunks = new Chunk[4];
+    private int chunkCount;
+    // Slots handed out so far, including freed ones
+    private int size;
+    // Freed slots, reused before new ones are handed out
+    private int[] free = new int[16];
+    private int freeCount;
+
+    /**
+     * Gives a flight a slot, taking over its remaining seats, departure, price
+     * and deleted flag.
+     *
+     * @param flight a flight not yet in any inventory
+     */
+    void add(Flight flight) {
+        int slot = freeCount > 0 ? free[--freeCount] : size++;
+        Chunk chunk = chunkFor(slot);
+        int offset = slot & (CHUNK_SLOTS - 1);
+        int base = offset * SEAT_TYPES;
+        chunk.flights[offset] = flight;
+        chunk.seats.set(base + SeatType.ECONOMY.ordinal(), flight.getEconCapacity());
+        chunk.seats.set(base + SeatType.BUSINESS.ordinal(), flight.getBusinessCapacity());
+        chunk.seats.set(base + SeatType.FIRST.ordinal(), flight.getFirstCapacity());
+        chunk.departureDays[offset] = flight.getDepartureDate().toEpochDay();
+        chunk.prices[offset] = flight.getBasePrice();
+        chunk.deleted[offset] = flight.isDeleted();
+        flight.attach(this, slot, chunk.seats, base);
+    }
+
+    /**
+     * Frees a flight's slot, handing its remaining seats, departure, price and
+     * deleted flag back to it.
+     *
+     * @param flight a flight in this inventory
+     */
+    void remove(Flight flight) {
+        int slot = flight.getSlot();
+        Chunk chunk = chunks[slot >>> CHUNK_BITS];
+        int offset = slot & (CHUNK_SLOTS - 1);
+        flight.detach();
+        chunk.flights[offset] = null;
+        for (int i = 0; i < SEAT_TYPES; i++) {
+            chunk.seats.set(offset * SEAT_TYPES + i, 0);
+        }
+        chunk.deleted[offset] = false;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, freeCount * 2);
+        }
+        free[freeCount++] = slot;
+    }
+
+    /**
+     * Returns the chunk holding a slot, adding it if the slot is the first beyond
+     * the existing chunks. Only the array of chunk references is ever copied.
+     */
+    private Chunk chunkFor(int slot) {
+        int index = slot >>> CHUNK_BITS;
+        if (index == chunkCount) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = new Chunk();
+        }
+        return chunks[index];
+    }
+
+    LocalDate getDepartureDate(int slot) {
+        return LocalDate.ofEpochDay(chunks[slot >>> CHUNK_BITS].departureDays[slot & (CHUNK_SLOTS - 1)]);
+    }
+
+    double getBasePrice(int slot) {
+        return chunks[slot >>> CHUNK_BITS].prices[slot & (CHUNK_SLOTS - 1)];
+    }
+
+    boolean isDeleted(int slot) {
+        return chunks[slot >>> CHUNK_BITS].deleted[slot & (CHUNK_SLOTS - 1)];
+    }
+
+    void setDeleted(int slot, boolean value) {
+        chunks[slot >>> CHUNK_BITS].deleted[slot & (CHUNK_SLOTS - 1)] = value;
+    }
+
+    /**
+     * Totals the unsold seats in one class on non-deleted flights departing after a date.
+     *
+     * @param seatType the seat class
+     * @param after    the date after which flights must depart
+     * @return the number of seats still available
+     */
+    long countSeats(SeatType seatType, LocalDate after) {
+        long day = after.toEpochDay();
+        int offset = seatType.ordinal();
+        long total = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            int used = Math.min(CHUNK_SLOTS, size - (c << CHUNK_BITS));
+            for (int i = 0; i < used; i++) {
+                if (chunk.flights[i] != null && !chunk.deleted[i] && chunk.departureDays[i] > day) {
+                    total += Math.max(0, chunk.seats.get(i * SEAT_TYPES + offset));
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * The columns of one run of <code>CHUNK_SLOTS</code> slots.
+     */
+    private static class Chunk implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Flight[] flights = new Flight[CHUNK_SLOTS];
+        // Remaining seats, SEAT_TYPES entries per slot in SeatType order
+        private final AtomicIntegerArray seats = new AtomicIntegerArray(CHUNK_SLOTS * SEAT_TYPES);
+        private final long[] departureDays = new long[CHUNK_SLOTS];
+        private final double[] prices = new double[CHUNK_SLOTS];
+        private final boolean[] deleted = new boolean[CHUNK_SLOTS];
+    }
+}
@@ -0,0 +1,35 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks guarding the seats and passengers of flights, shared out
+ * by flight ID. Selling seats on flights that map to different locks never
+ * contends, and the number of locks stays the same however many flights there are.
+ */
+class FlightLocks implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // A power of two, comfortably more than the number of cores selling at once
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    FlightLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the lock guarding a flight's seats and passengers.
+     *
+     * @param flight the flight
+     * @return its lock
+     */
+    ReentrantLock lockFor(Flight flight) {
+        int id = flight.getId();
+        return locks[(id ^ (id >>> 16)) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,130 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An index of flights by route and departure date, used by
+ * {@link FlightBookingSystem#searchFlights}.
+ * <p>
+ * Each flight is filed under four keys: its (origin, destination) route, its
+ * origin alone, its destination alone, and the key matching every flight. Each
+ * key maps to the flights sorted by departure date, so any combination of
+ * origin, destination and date range is answered by one range scan, in time
+ * that depends on the number of matches rather than the size of the schedule.
+ * Origins and destinations are matched ignoring case and surrounding spaces.
+ * <p>
+ * The key matching every flight also orders the whole schedule by departure
+ * date, so the flights after a given date are simply its tail.
+ */
+class FlightSearchIndex implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Stands for "any" in place of an origin or destination
+    private static final String ANY = "";
+
+    private final Map<String, NavigableMap<LocalDate, Set<Flight>>> byKey = new HashMap<>();
+
+    /**
+     * Files a flight under all of its keys.
+     *
+     * @param flight the flight to add
+     */
+    void add(Flight flight) {
+        for (String key : keys(flight)) {
+            byKey.computeIfAbsent(key, k -> new TreeMap<>())
+                .computeIfAbsent(flight.getDepartureDate(), date -> new LinkedHashSet<>())
+                .add(flight);
+        }
+    }
+
+    /**
+     * Removes a flight from all of its keys.
+     *
+     * @param flight the flight to remove
+     */
+    void remove(Flight flight) {
+        for (String key : keys(flight)) {
+            NavigableMap<LocalDate, Set<Flight>> byDate = byKey.get(key);
+            if (byDate == null) continue;
+            Set<Flight> onDate = byDate.get(flight.getDepartureDate());
+            if (onDate != null && onDate.remove(flight) && onDate.isEmpty()) {
+                byDate.remove(flight.getDepartureDate());
+                if (byDate.isEmpty()) {
+                    byKey.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the flights matching the given criteria, in departure date order.
+     *
+     * @param origin      the origin to match, or null/blank for any
+     * @param destination the destination to match, or null/blank for any
+     * @param from        the earliest departure date, or null for no limit
+     * @param to          the latest departure date, or null for no limit
+     * @return the matching flights, including deleted ones
+     */
+    List<Flight> find(String origin, String destination, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Set<Flight>> byDate = byKey.get(key(normalize(origin), normalize(destination)));
+        if (byDate == null) {
+            return new ArrayList<>();
+        }
+        if (from != null && to != null) {
+            byDate = byDate.subMap(from, true, to, true);
+        } else if (from != null) {
+            byDate = byDate.tailMap(from, true);
+        } else if (to != null) {
+            byDate = byDate.headMap(to, true);
+        }
+        List<Flight> results = new ArrayList<>();
+        for (Set<Flight> onDate : byDate.values()) {
+            results.addAll(onDate);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the flights departing strictly after the given date, in departure
+     * date order. Only those flights are visited.
+     *
+     * @param date the date after which flights must depart
+     * @return the matching flights, including deleted ones
+     */
+    List<Flight> departingAfter(LocalDate date) {
+        List<Flight> results = new ArrayList<>();
+        NavigableMap<LocalDate, Set<Flight>> byDate = byKey.get(key(ANY, ANY));
+        if (byDate != null) {
+            for (Set<Flight> onDate : byDate.tailMap(date, false).values()) {
+                results.addAll(onDate);
+            }
+        }
+        return results;
+    }
+
+    private static String[] keys(Flight flight) {
+        String origin = normalize(flight.getOrigin());
+        String destination = normalize(flight.getDestination());
+        return new String[] {
+            key(origin, destination), key(origin, ANY), key(ANY, destination), key(ANY, ANY)
+        };
+    }
+
+    private static String key(String origin, String destination) {
+        return origin + '\n' + destination;
+    }
+
+    private static String normalize(String place) {
+        return place == null ? ANY : place.trim().toUpperCase(Locale.ROOT);
+    }
+}
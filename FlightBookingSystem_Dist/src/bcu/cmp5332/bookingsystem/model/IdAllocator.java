@@ -0,0 +1,153 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out the IDs of new customers, flights and bookings, one allocator per
+ * {@link EntityType}. Safe to use from several threads at once.
+ * <p>
+ * IDs are taken from blocks reserved through a {@link BlockStore}, which records
+ * the highest ID reserved so far (the high-water mark) where every process sharing
+ * the data files can see it. Within a block an ID costs one compare-and-set; only
+ * reserving the next block takes a lock. Processes therefore never hand out the
+ * same ID, at the price of skipping whatever was left of a block when a process
+ * stops. Until a store is installed IDs are simply counted up in memory.
+ * <p>
+ * Entities created with an explicit ID, such as those loaded from file, report it
+ * through {@link #observe} so that it is never handed out again.
+ */
+public final class IdAllocator {
+    private static final Map<EntityType, IdAllocator> ALLOCATORS = new EnumMap<>(EntityType.class);
+
+    static {
+        for (EntityType type : EntityType.values()) {
+            ALLOCATORS.put(type, new IdAllocator(type));
+        }
+    }
+
+    private final EntityType type;
+    // The next ID to hand out, and the end (exclusive) of the block it is in
+    private final AtomicInteger next = new AtomicInteger(1);
+    private volatile int limit = Integer.MAX_VALUE;
+    private BlockStore store;
+    private int blockSize;
+
+    private IdAllocator(EntityType type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the allocator for one kind of entity.
+     *
+     * @param type the kind of entity
+     * @return its allocator
+     */
+    public static IdAllocator of(EntityType type) {
+        return ALLOCATORS.get(type);
+    }
+
+    /**
+     * Makes every allocator reserve its IDs through the given store from now on.
+     * The next ID each one hands out starts a new block.
+     *
+     * @param store     records the high-water mark of each kind of entity
+     * @param blockSize how many IDs to reserve at a time
+     * @throws IllegalArgumentException if the block size is not positive
+     */
+    public static void useBlockStore(BlockStore store, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("ID block size must be positive: " + blockSize);
+        }
+        for (IdAllocator allocator : ALLOCATORS.values()) {
+            synchronized (allocator) {
+                allocator.store = store;
+                allocator.blockSize = blockSize;
+                allocator.limit = allocator.next.get();
+            }
+        }
+    }
+
+    /**
+     * Puts every allocator back as it was at start-up: counting up from 1 in
+     * memory, with no block store and no IDs observed. For tests, which share
+     * the allocators within one JVM.
+     */
+    public static void reset() {
+        for (IdAllocator allocator : ALLOCATORS.values()) {
+            synchronized (allocator) {
+                allocator.store = null;
+                allocator.blockSize = 0;
+                allocator.next.set(1);
+                allocator.limit = Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Hands out a new ID.
+     *
+     * @return an ID not handed out or observed before
+     * @throws UncheckedIOException if a new block cannot be reserved
+     */
+    public int next() {
+        while (true) {
+            int id = next.get();
+            if (id < limit) {
+                if (next.compareAndSet(id, id + 1)) {
+                    return id;
+                }
+            } else {
+                reserveBlock();
+            }
+        }
+    }
+
+    /**
+     * Records an ID that is already in use, so that it is never handed out.
+     *
+     * @param id an existing ID
+     */
+    public void observe(int id) {
+        next.accumulateAndGet(id + 1, Math::max);
+    }
+
+    private synchronized void reserveBlock() {
+        int from = next.get();
+        if (from < limit) {
+            // Another thread reserved one while this one waited
+            return;
+        }
+        int start = from;
+        if (store != null) {
+            try {
+                start = store.reserve(type, from, blockSize);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not reserve " + type + " IDs", ex);
+            }
+        }
+        next.accumulateAndGet(start, Math::max);
+        limit = store == null ? Integer.MAX_VALUE : start + blockSize;
+    }
+
+    /**
+     * Durably records the high-water mark of each kind of entity.
+     */
+    public interface BlockStore {
+        /**
+         * Reserves a block of IDs: the block starts at the given ID or at the
+         * current high-water mark, whichever is higher, and the mark is moved
+         * past it before this returns.
+         *
+         * @param type  the kind of entity
+         * @param from  the lowest ID the caller can use
+         * @param count the number of IDs to reserve
+         * @return the first ID of the reserved block
+         * @throws IOException if the high-water mark cannot be updated
+         */
+        int reserve(EntityType type, int from, int count) throws IOException;
+    }
+}
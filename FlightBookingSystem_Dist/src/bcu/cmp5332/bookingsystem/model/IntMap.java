@@ -0,0 +1,204 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A map from int IDs to values, used for the customer, flight and booking
+ * registries of {@link FlightBookingSystem}.
+ * <p>
+ * Keys and values are kept in two parallel arrays with open addressing and
+ * linear probing, so there is no boxed key or entry object per record: each
+ * entry costs one int and one reference. IDs are handed out in sequence, so
+ * they spread evenly over the table without any further hashing, and values
+ * are iterated in much the same ID order as a <code>HashMap</code> would give.
+ * <p>
+ * Null values are not allowed. Not thread-safe.
+ *
+ * @param <V> the type of the values
+ */
+class IntMap<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    // A slot is empty when its value is null
+    private Object[] values;
+    private int size;
+
+    IntMap() {
+        keys = new int[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return the size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a key is present.
+     *
+     * @param key the key
+     * @return true if the key has a value
+     */
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns the value for a key.
+     *
+     * @param key the key
+     * @return the value, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sets the value for a key.
+     *
+     * @param key   the key
+     * @param value the value, not null
+     * @return the previous value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("IntMap values cannot be null.");
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        // Keep the table at most half full so probe runs stay short
+        if (++size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the value for a key.
+     *
+     * @param key the key
+     * @return the removed value, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V remove(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return null;
+        }
+        V removed = (V) values[i];
+        // Shift later entries of the probe run back into the gap, so lookups
+        // never stop early at it and no tombstones are needed.
+        int gap = i;
+        for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Returns a read-only view of the values. The view must not be used while
+     * the map is being changed.
+     *
+     * @return the values
+     */
+    Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<V>() {
+                    private int next = advance(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public V next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        V value = (V) values[next];
+                        next = advance(next + 1);
+                        return value;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int advance(int from) {
+        while (from < values.length && values[from] == null) {
+            from++;
+        }
+        return from;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = slot(oldKeys[j], mask);
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int slot(int key, int mask) {
+        // Same spreading as HashMap: sequential IDs map to sequential slots
+        return (key ^ (key >>> 16)) & mask;
+    }
+}
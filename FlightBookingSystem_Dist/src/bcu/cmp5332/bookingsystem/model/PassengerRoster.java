@@ -0,0 +1,219 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The passengers of one {@link Flight}, held as customer IDs with the number of
+ * seats each holds in every class.
+ * <p>
+ * IDs and seat counts live in primitive arrays with open addressing, so a
+ * passenger costs an int and a long (the three per-class counts packed
+ * together) instead of a hash node and a customer reference, and the customers
+ * themselves are only looked up when a roster is listed.
+ * The number of seats held in each class is kept as a running total. The
+ * tables are only allocated with the first passenger, so the many flights of a
+ * schedule that nobody has booked yet share one empty table. Not thread-safe; {@link FlightBookingSystem} guards it with the flight's lock.
+ */
+class PassengerRoster implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int SEAT_TYPES = SeatType.values().length;
+    private static final int EMPTY = Integer.MIN_VALUE;
+    // Each class's count takes COUNT_BITS of a slot's long, in SeatType order
+    private static final int COUNT_BITS = 21;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int INITIAL_CAPACITY = 8;
+    // The tables of every roster that has never had a passenger; never written
+    private static final int[] NO_IDS = {EMPTY};
+    private static final long[] NO_SEATS = {0};
+
+    private int[] ids = NO_IDS;
+    private long[] seats = NO_SEATS;
+    private final int[] cabinTotals = new int[SEAT_TYPES];
+    private int size;
+
+    /**
+     * Returns the number of distinct passengers.
+     *
+     * @return the passenger count
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of seats held in one class across all passengers.
+     *
+     * @param seatType the seat class
+     * @return the seats held in that class
+     */
+    int seatsIn(SeatType seatType) {
+        return cabinTotals[seatType.ordinal()];
+    }
+
+    /**
+     * Checks whether a customer is a passenger.
+     *
+     * @param id the customer ID
+     * @return true if they hold at least one seat
+     */
+    boolean contains(int id) {
+        return ids[find(id)] != EMPTY;
+    }
+
+    /**
+     * Returns the number of seats a passenger holds in one class.
+     *
+     * @param id       the customer ID
+     * @param seatType the seat class
+     * @return the seats held, 0 if the customer is not a passenger
+     */
+    int seatsHeld(int id, SeatType seatType) {
+        int slot = find(id);
+        return ids[slot] == EMPTY ? 0 : count(seats[slot], seatType.ordinal());
+    }
+
+    /**
+     * Records one more seat in a class for a passenger, adding them if needed.
+     *
+     * @param id       the customer ID
+     * @param seatType the seat class
+     */
+    void add(int id, SeatType seatType) {
+        if (ids == NO_IDS) {
+            allocate(INITIAL_CAPACITY);
+        }
+        int slot = find(id);
+        if (ids[slot] == EMPTY) {
+            ids[slot] = id;
+            size++;
+        }
+        if (count(seats[slot], seatType.ordinal()) == COUNT_MASK) {
+            throw new IllegalStateException("Too many " + seatType + " seats for customer " + id + ".");
+        }
+        seats[slot] += 1L << (seatType.ordinal() * COUNT_BITS);
+        cabinTotals[seatType.ordinal()]++;
+        // Keep the table at most three-quarters full so probe runs stay short
+        if (size * 4 > ids.length * 3) {
+            rehash(ids.length * 2);
+        }
+    }
+
+    /**
+     * Drops one seat in a class from a passenger, removing them once they hold none.
+     *
+     * @param id       the customer ID
+     * @param seatType the seat class
+     */
+    void removeOne(int id, SeatType seatType) {
+        int slot = find(id);
+        if (ids[slot] == EMPTY || count(seats[slot], seatType.ordinal()) == 0) {
+            return;
+        }
+        seats[slot] -= 1L << (seatType.ordinal() * COUNT_BITS);
+        cabinTotals[seatType.ordinal()]--;
+        if (seats[slot] == 0) {
+            delete(slot);
+        }
+    }
+
+    /**
+     * Removes a passenger together with every seat they hold.
+     *
+     * @param id the customer ID
+     */
+    void removeAll(int id) {
+        int slot = find(id);
+        if (ids[slot] == EMPTY) {
+            return;
+        }
+        for (int i = 0; i < SEAT_TYPES; i++) {
+            cabinTotals[i] -= count(seats[slot], i);
+        }
+        delete(slot);
+    }
+
+    /**
+     * Returns the passengers' customer IDs in ascending order.
+     *
+     * @return a new array of IDs
+     */
+    int[] ids() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int id : ids) {
+            if (id != EMPTY) {
+                result[n++] = id;
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Makes this roster an exact copy of another.
+     *
+     * @param other the roster to copy
+     */
+    void copyFrom(PassengerRoster other) {
+        ids = other.ids == NO_IDS ? NO_IDS : other.ids.clone();
+        seats = other.seats == NO_SEATS ? NO_SEATS : other.seats.clone();
+        System.arraycopy(other.cabinTotals, 0, cabinTotals, 0, SEAT_TYPES);
+        size = other.size;
+    }
+
+    /**
+     * Returns the slot holding an ID, or the empty slot where it would go.
+     */
+    private int find(int id) {
+        int mask = ids.length - 1;
+        int slot = (id ^ (id >>> 16)) & mask;
+        while (ids[slot] != EMPTY && ids[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, shifting later entries of its probe run back so lookups never stop early.
+     */
+    private void delete(int slot) {
+        int mask = ids.length - 1;
+        int gap = slot;
+        for (int j = (gap + 1) & mask; ids[j] != EMPTY; j = (j + 1) & mask) {
+            int home = (ids[j] ^ (ids[j] >>> 16)) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                ids[gap] = ids[j];
+                seats[gap] = seats[j];
+                gap = j;
+            }
+        }
+        ids[gap] = EMPTY;
+        seats[gap] = 0;
+        size--;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldIds = ids;
+        long[] oldSeats = seats;
+        allocate(capacity);
+        for (int j = 0; j < oldIds.length; j++) {
+            if (oldIds[j] != EMPTY) {
+                int slot = find(oldIds[j]);
+                ids[slot] = oldIds[j];
+                seats[slot] = oldSeats[j];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        Arrays.fill(ids, EMPTY);
+        seats = new long[capacity];
+    }
+
+    private static int count(long packed, int ordinal) {
+        return (int) ((packed >>> (ordinal * COUNT_BITS)) & COUNT_MASK);
+    }
+}
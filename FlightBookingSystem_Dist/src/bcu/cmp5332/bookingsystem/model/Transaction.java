@@ -0,0 +1,338 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A group of changes to a {@link FlightBookingSystem} that can be undone as a unit.
+ * <p>
+ * Every change made through a transaction records the operation that reverses it
+ * in an undo log. {@link #rollback()} replays the log newest first, restoring seat
+ * counts, passenger sets, booking lists and deleted flags exactly as they were;
+ * {@link #commit()} discards it. Beginning a transaction is O(1), and rolling back
+ * costs time proportional to the changes made, not to the size of the system.
+ * <p>
+ * Obtain one with {@link FlightBookingSystem#beginTransaction()}, preferably in a
+ * try-with-resources statement: closing a transaction that was neither committed
+ * nor rolled back rolls it back. An open transaction holds the system's transaction
+ * lock shared, so it must be finished, on the thread that began it, before
+ * checkpoints and stores can proceed. A transaction is not thread-safe and may
+ * be finished only once.
+ * <p>
+ * Transactions are journaled in the order they first changed the system, so a
+ * change is never journaled before a change it was based on. For this to hold,
+ * a transaction must look up everything it depends on before its first change,
+ * and journal through {@link #awaitJournalTurn()} and {@link #journaled()}.
+ */
+public class Transaction implements AutoCloseable {
+    private final FlightBookingSystem fbs;
+    private final Lock shared;
+    private final ChangeOrder order;
+    private final Deque<Runnable> undoLog = new ArrayDeque<>();
+    // Taken on the first change, and given up once journaled or finished.
+    private long ticket;
+    private boolean ordered;
+    private boolean finished;
+
+    Transaction(FlightBookingSystem fbs, Lock shared, ChangeOrder order) {
+        this.fbs = fbs;
+        this.shared = shared;
+        this.order = order;
+    }
+
+    /**
+     * Adds a flight to the system.
+     *
+     * @param flight the flight to add
+     * @throws IllegalArgumentException if the flight ID already exists
+     */
+    public void addFlight(Flight flight) {
+        beginChange();
+        fbs.addFlight(flight);
+        undoLog.push(() -> fbs.removeFlight(flight));
+    }
+
+    /**
+     * Adds a customer to the system.
+     *
+     * @param customer the customer to add
+     * @throws IllegalArgumentException if the customer ID already exists
+     */
+    public void addCustomer(Customer customer) {
+        beginChange();
+        fbs.addCustomer(customer);
+        undoLog.push(() -> fbs.removeCustomer(customer));
+    }
+
+    /**
+     * Sets a flight's deleted flag.
+     *
+     * @param flight  the flight to change
+     * @param deleted the new flag value
+     */
+    public void setDeleted(Flight flight, boolean deleted) {
+        beginChange();
+        boolean previous = flight.isDeleted();
+        fbs.setFlightDeleted(flight, deleted);
+        undoLog.push(() -> fbs.setFlightDeleted(flight, previous));
+    }
+
+    /**
+     * Sets a customer's deleted flag.
+     *
+     * @param customer the customer to change
+     * @param deleted  the new flag value
+     */
+    public void setDeleted(Customer customer, boolean deleted) {
+        beginChange();
+        boolean previous = customer.isDeleted();
+        fbs.setCustomerDeleted(customer, deleted);
+        undoLog.push(() -> fbs.setCustomerDeleted(customer, previous));
+    }
+
+    /**
+     * Sells a seat for a new booking, as {@link FlightBookingSystem#bookSeat}.
+     *
+     * @param booking the booking to add; its flight and seat type must be set
+     * @throws IllegalStateException    if the flight is full in that seat class
+     * @throws IllegalArgumentException if the booking ID already exists
+     */
+    public void bookSeat(Booking booking) {
+        beginChange();
+        fbs.bookSeat(booking);
+        undoLog.push(() -> fbs.unbookSeat(booking));
+    }
+
+    /**
+     * Seats a customer on a flight, consuming one seat of the given class.
+     *
+     * @param flight   the flight
+     * @param customer the passenger
+     * @param seatType the seat class
+     * @throws IllegalStateException if the flight is full in that seat class
+     */
+    public void addPassenger(Flight flight, Customer customer, SeatType seatType) {
+        beginChange();
+        Lock lock = fbs.flightLock(flight);
+        lock.lock();
+        try {
+            flight.addPassenger(customer, seatType);
+            undoLog.push(() -> {
+                lock.lock();
+                try {
+                    flight.release(seatType, 1);
+                    flight.unlinkPassenger(customer, seatType);
+                } finally {
+                    lock.unlock();
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes a customer from a flight's passengers. Seat capacity is unchanged.
+     *
+     * @param flight   the flight
+     * @param customer the passenger to remove
+     */
+    public void removePassenger(Flight flight, Customer customer) {
+        beginChange();
+        Lock lock = fbs.flightLock(flight);
+        lock.lock();
+        try {
+            if (flight.hasPassenger(customer)) {
+                int[] held = new int[SeatType.values().length];
+                for (SeatType seatType : SeatType.values()) {
+                    held[seatType.ordinal()] = flight.getSeatsHeld(customer, seatType);
+                }
+                flight.removePassenger(customer);
+                undoLog.push(() -> {
+                    lock.lock();
+                    try {
+                        for (SeatType seatType : SeatType.values()) {
+                            for (int i = 0; i < held[seatType.ordinal()]; i++) {
+                                flight.linkPassenger(customer, seatType);
+                            }
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops one seat in a class from a customer's seats on a flight, as when one
+     * of their bookings moves elsewhere. They stay a passenger while they hold
+     * other seats. Seat capacity is unchanged.
+     *
+     * @param flight   the flight
+     * @param customer the passenger
+     * @param seatType the class of the seat
+     */
+    public void unlinkPassenger(Flight flight, Customer customer, SeatType seatType) {
+        beginChange();
+        Lock lock = fbs.flightLock(flight);
+        lock.lock();
+        try {
+            if (flight.getSeatsHeld(customer, seatType) > 0) {
+                flight.unlinkPassenger(customer, seatType);
+                undoLog.push(() -> {
+                    lock.lock();
+                    try {
+                        flight.linkPassenger(customer, seatType);
+                    } finally {
+                        lock.unlock();
+                    }
+                });
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a booking to its customer and the booking index.
+     *
+     * @param booking the booking to add
+     * @throws IllegalArgumentException if the booking ID already exists
+     */
+    public void addBooking(Booking booking) {
+        beginChange();
+        fbs.addBooking(booking);
+        undoLog.push(() -> fbs.removeBooking(booking));
+    }
+
+    /**
+     * Removes a customer's bookings on a flight.
+     *
+     * @param customer the customer
+     * @param flight   the flight whose bookings are cancelled
+     */
+    public void cancelBookingForFlight(Customer customer, Flight flight) {
+        beginChange();
+        List<Booking> cancelled = new ArrayList<>(customer.getBookings(flight));
+        fbs.cancelBookingsForFlight(customer, flight);
+        undoLog.push(() -> fbs.restoreBookings(customer, cancelled));
+    }
+
+    /**
+     * Moves a booking to another flight and seat class.
+     *
+     * @param booking  the booking to change
+     * @param flight   the new flight
+     * @param seatType the new seat class
+     */
+    public void moveBooking(Booking booking, Flight flight, SeatType seatType) {
+        beginChange();
+        Flight previousFlight = booking.getFlight();
+        SeatType previousSeatType = booking.getSeatType();
+        fbs.moveBooking(booking, flight, seatType);
+        undoLog.push(() -> fbs.moveBooking(booking, previousFlight, previousSeatType));
+    }
+
+    /**
+     * Sets the fee charged on a booking.
+     *
+     * @param booking the booking to change
+     * @param fee     the new fee
+     */
+    public void setFee(Booking booking, double fee) {
+        beginChange();
+        double previous = booking.getFee();
+        booking.setFee(fee);
+        undoLog.push(() -> booking.setFee(previous));
+    }
+
+    /**
+     * Keeps every change made through this transaction.
+     *
+     * @throws IllegalStateException if the transaction has already finished
+     */
+    public void commit() {
+        checkActive();
+        finished = true;
+        undoLog.clear();
+        journaled();
+        shared.unlock();
+    }
+
+    /**
+     * Reverts every change made through this transaction, newest first.
+     *
+     * @throws IllegalStateException if the transaction has already finished
+     */
+    public void rollback() {
+        checkActive();
+        finished = true;
+        try {
+            while (!undoLog.isEmpty()) {
+                undoLog.pop().run();
+            }
+        } finally {
+            journaled();
+            shared.unlock();
+        }
+    }
+
+    /**
+     * Rolls back the transaction unless it has already been committed or rolled back.
+     */
+    @Override
+    public void close() {
+        if (!finished) {
+            rollback();
+        }
+    }
+
+    /**
+     * Waits until every transaction that changed the system before this one has
+     * journaled its changes or finished. Call it just before journaling this
+     * transaction's changes, and {@link #journaled()} straight after.
+     *
+     * @throws InterruptedException  if interrupted while waiting
+     * @throws IllegalStateException if the transaction has already finished
+     */
+    public void awaitJournalTurn() throws InterruptedException {
+        checkActive();
+        if (ticket != 0) {
+            order.awaitTurn(ticket);
+        }
+    }
+
+    /**
+     * Lets transactions that changed the system after this one journal their
+     * changes. Committing or rolling back does the same.
+     */
+    public void journaled() {
+        if (ticket != 0) {
+            order.leave(ticket);
+            ticket = 0;
+        }
+    }
+
+    /**
+     * Takes this transaction's place in the journal order before its first change.
+     */
+    private void beginChange() {
+        checkActive();
+        if (!ordered) {
+            ordered = true;
+            ticket = order.enter();
+        }
+    }
+
+    private void checkActive() {
+        if (finished) {
+            throw new IllegalStateException("Transaction has already finished.");
+        }
+    }
+}
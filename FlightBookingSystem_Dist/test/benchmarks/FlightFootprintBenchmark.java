@@ -0,0 +1,66 @@
+package benchmarks;
+
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.SeatType;
+
+import java.time.LocalDate;
+
+/**
+ * Measures the heap retained per flight by a {@link FlightBookingSystem} holding
+ * a multi-year schedule, most of whose flights have no bookings yet.
+ * <p>
+ * Run with: <code>java benchmarks.FlightFootprintBenchmark [flights]</code>.
+ * Prints the heap retained per flight, measured as the used heap after a full
+ * collection with and without the system, and the time of one fleet-wide scan.
+ * The route strings are shared between flights, as they are once interned by
+ * the loaders, so the figure is the cost of the flights themselves.
+ */
+public class FlightFootprintBenchmark {
+    private static final String[] AIRPORTS = {"London", "Paris", "Berlin", "Madrid", "Rome", "Dublin"};
+
+    public static void main(String[] args) {
+        int flights = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        String[] numbers = new String[1000];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = "FB" + i;
+        }
+
+        long before = usedHeap();
+        FlightBookingSystem fbs = build(flights, numbers);
+        long after = usedHeap();
+        System.out.printf("%d flights  %6.1f B/flight%n", flights, (after - before) / (double) flights);
+
+        long start = System.nanoTime();
+        long seats = 0;
+        for (int i = 0; i < 10; i++) {
+            seats += fbs.countUpcomingSeats(SeatType.ECONOMY);
+        }
+        System.out.printf("countUpcomingSeats %8.2f ms/scan  (checksum %d)%n",
+            (System.nanoTime() - start) / 1e6 / 10, seats);
+    }
+
+    private static FlightBookingSystem build(int flights, String[] numbers) {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        LocalDate start = LocalDate.now();
+        for (int i = 1; i <= flights; i++) {
+            fbs.addFlight(new Flight(i, numbers[i % numbers.length],
+                AIRPORTS[i % AIRPORTS.length], AIRPORTS[(i + 1) % AIRPORTS.length],
+                start.plusDays(i % 1500), 150, 20, 8, 80.0 + i % 400, false));
+        }
+        return fbs;
+    }
+
+    /**
+     * Returns the heap in use once everything unreachable has been collected.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,92 @@
+package bcu.cmp5332.bookingsystem.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares {@link IntMap} with the <code>HashMap&lt;Integer, ...&gt;</code> it
+ * replaced for the registries of {@link FlightBookingSystem}: heap per entry
+ * and the time of a lookup by a random ID, with IDs handed out in sequence as
+ * they are by {@link IdAllocator}.
+ * <p>
+ * It is in the model package because <code>IntMap</code> is package-private.
+ * Run with: <code>java bcu.cmp5332.bookingsystem.model.IntMapBenchmark [entries] [lookups]</code>.
+ * Every entry maps to the same value, so the heap figures are the cost of the
+ * maps alone.
+ */
+public class IntMapBenchmark {
+    private static final Object VALUE = new Object();
+
+    public static void main(String[] args) {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        int[] keys = new int[lookups];
+        Random random = new Random(42);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 1 + random.nextInt(entries);
+        }
+
+        long before = usedHeap();
+        IntMap<Object> intMap = new IntMap<>();
+        for (int id = 1; id <= entries; id++) {
+            intMap.put(id, VALUE);
+        }
+        long intMapBytes = usedHeap() - before;
+
+        before = usedHeap();
+        Map<Integer, Object> hashMap = new HashMap<>();
+        for (int id = 1; id <= entries; id++) {
+            hashMap.put(id, VALUE);
+        }
+        long hashMapBytes = usedHeap() - before;
+
+        System.out.printf("%d entries%n", entries);
+        System.out.printf("%-8s %6.1f B/entry%n", "IntMap", intMapBytes / (double) entries);
+        System.out.printf("%-8s %6.1f B/entry%n", "HashMap", hashMapBytes / (double) entries);
+
+        for (int i = 0; i < 5; i++) {
+            intMapPass(intMap, keys);
+            hashMapPass(hashMap, keys);
+        }
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            long found = intMapPass(intMap, keys);
+            long intMapNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            found += hashMapPass(hashMap, keys);
+            long hashMapNanos = System.nanoTime() - start;
+            System.out.printf("random get  IntMap %6.1f ns  HashMap %6.1f ns  (found %d)%n",
+                intMapNanos / (double) lookups, hashMapNanos / (double) lookups, found);
+        }
+    }
+
+    private static long intMapPass(IntMap<Object> map, int[] keys) {
+        long found = 0;
+        for (int key : keys) {
+            if (map.get(key) != null) found++;
+        }
+        return found;
+    }
+
+    private static long hashMapPass(Map<Integer, Object> map, int[] keys) {
+        long found = 0;
+        for (int key : keys) {
+            if (map.get(key) != null) found++;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the heap in use once everything unreachable has been collected.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import bcu.cmp5332.bookingsystem.data.RecordReader;
+import bcu.cmp5332.bookingsystem.model.FoodOption;
+import bcu.cmp5332.bookingsystem.model.SeatType;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.util.Scanner;
+
+/**
+ * Compares the old <code>Scanner</code> + <code>split</code> loading path with
+ * {@link RecordReader} on a generated <code>bookings.txt</code>-style file.
+ * <p>
+ * Run with: <code>java benchmarks.RecordReaderBenchmark [records] [iterations]</code>.
+ * Prints the average time per full pass and, where the JVM supports it, the
+ * bytes allocated per record.
+ */
+public class RecordReaderBenchmark {
+    private static final String SEPARATOR = "::";
+    private static final SeatType[] SEAT_TYPES = SeatType.values();
+    private static final FoodOption[] FOOD_OPTIONS = FoodOption.values();
+
+    public static void main(String[] args) throws IOException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        File file = File.createTempFile("bookings", ".txt");
+        file.deleteOnExit();
+        generate(file, records);
+        System.out.printf("%d records, %.1f MB%n", records, file.length() / (1024.0 * 1024.0));
+
+        for (int i = 0; i < 3; i++) {
+            scannerPass(file);
+            readerPass(file);
+        }
+        measure("Scanner + split", file, records, iterations, false);
+        measure("RecordReader", file, records, iterations, true);
+    }
+
+    private static void measure(String name, File file, int records, int iterations, boolean reader)
+            throws IOException {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < iterations; i++) {
+            checksum += reader ? readerPass(file) : scannerPass(file);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("%-16s %8.1f ms/pass", name, elapsed / 1e6 / iterations);
+        if (allocatedBefore >= 0) {
+            System.out.printf("  %6.1f B/record", allocated / (double) records / iterations);
+        }
+        System.out.printf("  (checksum %d)%n", checksum);
+    }
+
+    private static long scannerPass(File file) throws IOException {
+        long checksum = 0;
+        try (Scanner scanner = new Scanner(new FileReader(file))) {
+            while (scanner.hasNextLine()) {
+                String[] data = scanner.nextLine().split(SEPARATOR);
+                checksum += Integer.parseInt(data[0]) + Integer.parseInt(data[1]);
+                checksum += LocalDate.parse(data[2]).getDayOfMonth();
+                checksum += Integer.parseInt(data[3]);
+                checksum += SeatType.valueOf(data[4]).ordinal() + FoodOption.valueOf(data[5]).ordinal();
+                checksum += (long) (Double.parseDouble(data[6]) + Double.parseDouble(data[7]));
+            }
+        }
+        return checksum;
+    }
+
+    private static long readerPass(File file) throws IOException {
+        long checksum = 0;
+        try (RecordReader reader = new RecordReader(file)) {
+            while (reader.nextRecord()) {
+                checksum += reader.nextInt() + reader.nextInt();
+                checksum += reader.nextDate().getDayOfMonth();
+                checksum += reader.nextInt();
+                checksum += reader.nextEnum(SEAT_TYPES).ordinal() + reader.nextEnum(FOOD_OPTIONS).ordinal();
+                checksum += (long) (reader.nextDouble() + reader.nextDouble());
+            }
+        }
+        return checksum;
+    }
+
+    private static void generate(File file, int records) throws IOException {
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file), 1 << 16))) {
+            for (int i = 1; i <= records; i++) {
+                writer.println(
+                    (i % 5000 + 1) + SEPARATOR +
+                    (i % 300 + 1) + SEPARATOR +
+                    start.plusDays(i % 365) + SEPARATOR +
+                    i + SEPARATOR +
+                    SEAT_TYPES[i % SEAT_TYPES.length] + SEPARATOR +
+                    FOOD_OPTIONS[i % FOOD_OPTIONS.length] + SEPARATOR +
+                    (100 + i % 900) + ".5" + SEPARATOR +
+                    (i % 7) * 12.25
+                );
+            }
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by this thread, or -1 if the JVM cannot tell.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+}
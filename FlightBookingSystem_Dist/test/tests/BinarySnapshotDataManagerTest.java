@@ -0,0 +1,164 @@
+package tests;
+
+import bcu.cmp5332.bookingsystem.data.BinarySnapshotDataManager;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.FoodOption;
+import bcu.cmp5332.bookingsystem.model.SeatType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Tests writing the whole system to the binary snapshot and reading it back,
+ * and that a damaged snapshot is never loaded.
+ */
+class BinarySnapshotDataManagerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripKeepsEveryField() throws IOException {
+        FlightBookingSystem fbs = sampleSystem();
+        BinarySnapshotDataManager manager = new BinarySnapshotDataManager(dir.resolve("snapshot.bin").toString());
+        store(manager, fbs);
+
+        FlightBookingSystem loaded = new FlightBookingSystem();
+        manager.loadData(loaded);
+
+        assertEquals(fbs.getAllFlights().size(), loaded.getAllFlights().size());
+        for (Flight expected : fbs.getAllFlights()) {
+            Flight actual = loaded.getFlightById(expected.getId());
+            assertEquals(expected.getFlightNumber(), actual.getFlightNumber());
+            assertEquals(expected.getOrigin(), actual.getOrigin());
+            assertEquals(expected.getDestination(), actual.getDestination());
+            assertEquals(expected.getDepartureDate(), actual.getDepartureDate());
+            assertEquals(expected.getEconCapacity(), actual.getEconCapacity());
+            assertEquals(expected.getBusinessCapacity(), actual.getBusinessCapacity());
+            assertEquals(expected.getFirstCapacity(), actual.getFirstCapacity());
+            assertEquals(expected.getBasePrice(), actual.getBasePrice());
+            assertEquals(expected.isDeleted(), actual.isDeleted());
+        }
+        assertEquals(fbs.getAllCustomers().size(), loaded.getAllCustomers().size());
+        for (Customer expected : fbs.getAllCustomers()) {
+            Customer actual = loaded.getCustomerById(expected.getId());
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getPhone(), actual.getPhone());
+            assertEquals(expected.getEmail(), actual.getEmail());
+            assertEquals(expected.isDeleted(), actual.isDeleted());
+        }
+        assertEquals(fbs.getAllBookings().size(), loaded.getAllBookings().size());
+        for (Booking expected : fbs.getAllBookings()) {
+            Booking actual = loaded.getBookingById(expected.getBookingId());
+            assertEquals(expected.getCustomer().getId(), actual.getCustomer().getId());
+            assertEquals(expected.getFlight().getId(), actual.getFlight().getId());
+            assertEquals(expected.getBookingDate(), actual.getBookingDate());
+            assertEquals(expected.getSeatType(), actual.getSeatType());
+            assertEquals(expected.getFoodOption(), actual.getFoodOption());
+            assertEquals(expected.getBookingPrice(), actual.getBookingPrice());
+            assertEquals(expected.getFee(), actual.getFee());
+            assertTrue(actual.getFlight().hasPassenger(actual.getCustomer()));
+        }
+    }
+
+    @Test
+    void testTruncatedSnapshotIsRejected() throws IOException {
+        BinarySnapshotDataManager manager = new BinarySnapshotDataManager(dir.resolve("snapshot.bin").toString());
+        store(manager, sampleSystem());
+        byte[] bytes = Files.readAllBytes(manager.getFile().toPath());
+        Files.write(manager.getFile().toPath(), Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertThrows(IOException.class, () -> manager.loadData(new FlightBookingSystem()));
+    }
+
+    @Test
+    void testCorruptSnapshotIsRejected() throws IOException {
+        BinarySnapshotDataManager manager = new BinarySnapshotDataManager(dir.resolve("snapshot.bin").toString());
+        FlightBookingSystem fbs = sampleSystem();
+        store(manager, fbs);
+        byte[] bytes = Files.readAllBytes(manager.getFile().toPath());
+
+        // The low byte of the customer ID in the first booking record; bookings come last, 34 bytes each
+        byte[] badCustomer = bytes.clone();
+        badCustomer[bytes.length - fbs.getAllBookings().size() * 34 + 7] = 99;
+        Files.write(manager.getFile().toPath(), badCustomer);
+        assertThrows(IOException.class, () -> manager.loadData(new FlightBookingSystem()));
+
+        byte[] badMagic = bytes.clone();
+        badMagic[0] = 'X';
+        Files.write(manager.getFile().toPath(), badMagic);
+        assertThrows(IOException.class, () -> manager.loadData(new FlightBookingSystem()));
+    }
+
+    @Test
+    void testTextFilesAreLoadedWhenTheSnapshotIsDamaged() throws Exception {
+        File data = dir.resolve("resources/data").toFile();
+        assertTrue(data.mkdirs());
+        write(new File(data, "flights.txt"), "1::LH123::Berlin::Paris::2030-04-20::10::5::2::450.0::false\n");
+        write(new File(data, "customers.txt"), "1::Alice::12345::alice@example.com::false\n");
+        write(new File(data, "bookings.txt"), "");
+        BinarySnapshotDataManager manager =
+            new BinarySnapshotDataManager(new File(data, "snapshot.bin").getPath());
+        FlightBookingSystem other = new FlightBookingSystem();
+        other.addCustomer(new Customer(1, "Mallory", "666", "mallory@example.com", false));
+        store(manager, other);
+        byte[] bytes = Files.readAllBytes(manager.getFile().toPath());
+        Files.write(manager.getFile().toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+
+        String output = MainProcess.run(dir, "listcustomers\nexit\n");
+        assertTrue(output.contains("Alice"), output);
+        assertFalse(output.contains("Mallory"), output);
+        assertFalse(manager.getFile().exists());
+        assertTrue(new File(data, "snapshot.bin.rejected").exists());
+    }
+
+    /**
+     * Returns a system using every seat class and food option, with a deleted
+     * flight and a deleted customer, and non-zero prices and fees.
+     */
+    private static FlightBookingSystem sampleSystem() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        fbs.addFlight(new Flight(1, "LH123", "Berlin", "Paris", LocalDate.of(2030, 4, 20), 10, 5, 2, 450.25, false));
+        fbs.addFlight(new Flight(2, "BA456", "London", "Berlin", LocalDate.of(2030, 5, 1), 3, 2, 1, 99.5, true));
+        fbs.addCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false));
+        fbs.addCustomer(new Customer(2, "Bob", "67890", "", true));
+
+        SeatType[] seatTypes = SeatType.values();
+        FoodOption[] foodOptions = FoodOption.values();
+        int count = Math.max(seatTypes.length, foodOptions.length);
+        for (int i = 0; i < count; i++) {
+            Booking booking = new Booking(i + 1, fbs.getCustomerById(1 + i % 2), fbs.getFlightById(1 + i % 2),
+                LocalDate.of(2030, 1, 1 + i));
+            booking.setSeatType(seatTypes[i % seatTypes.length]);
+            booking.setFoodOption(foodOptions[i % foodOptions.length]);
+            booking.setBookingPrice(100.125 * (i + 1));
+            booking.setFee(i * 12.5);
+            fbs.bookSeat(booking);
+        }
+        return fbs;
+    }
+
+    private static void store(BinarySnapshotDataManager manager, FlightBookingSystem fbs) throws IOException {
+        try (OutputStream out = new FileOutputStream(manager.getFile())) {
+            manager.storeData(fbs, out);
+        }
+    }
+
+    private static void write(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
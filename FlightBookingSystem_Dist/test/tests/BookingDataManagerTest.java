@@ -0,0 +1,76 @@
+package tests;
+
+import bcu.cmp5332.bookingsystem.data.BookingDataManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Tests parsing a bookings file large enough to be split into byte ranges
+ * that are parsed in parallel.
+ */
+class BookingDataManagerTest {
+    // Comfortably more than the 1 MiB above which the file is split
+    private static final int RECORDS = 60_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testSplitFileIsParsedOnceInOrder() throws IOException {
+        byte[] bytes = bookings(RECORDS);
+        // The first split falls in the middle of a line
+        assertTrue(bytes[bytes.length / 2 - 1] != '\n' && bytes[bytes.length / 2] != '\n');
+
+        assertParsedInOrder(write(bytes), RECORDS);
+    }
+
+    @Test
+    void testSplitFileWithoutFinalNewlineIsParsedOnceInOrder() throws IOException {
+        byte[] bytes = bookings(RECORDS);
+
+        assertParsedInOrder(write(Arrays.copyOf(bytes, bytes.length - 1)), RECORDS);
+    }
+
+    private static void assertParsedInOrder(BookingDataManager manager, int expected) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<BookingDataManager.BookingRecord> records = manager.readBookings(pool);
+            assertEquals(expected, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(i + 1, records.get(i).getBookingId());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private BookingDataManager write(byte[] bytes) throws IOException {
+        File file = dir.resolve("bookings.txt").toFile();
+        Files.write(file.toPath(), bytes);
+        return new BookingDataManager(file.getPath());
+    }
+
+    /**
+     * Returns a bookings file of the given number of records, numbered from 1,
+     * whose lines vary in length.
+     */
+    private static byte[] bookings(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= count; i++) {
+            text.append(i % 97).append("::").append(i % 13).append("::2025-02-17::").append(i)
+                .append("::BUSINESS::VEGETARIAN::").append(i * 0.5).append("::0.0\n");
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
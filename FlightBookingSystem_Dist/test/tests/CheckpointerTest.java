@@ -0,0 +1,43 @@
+package tests;
+
+import bcu.cmp5332.bookingsystem.data.Checkpointer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests that checkpoints are taken on time even when nothing is appended to
+ * the journal.
+ */
+class CheckpointerTest {
+
+    @Test
+    void testIntervalCheckpointIsTakenWithoutAppends() throws InterruptedException {
+        Checkpointer checkpointer = new Checkpointer(0, 50);
+        AtomicLong journalBytes = new AtomicLong(100);
+        CountDownLatch taken = new CountDownLatch(2);
+        checkpointer.scheduleIntervalChecks(journalBytes::get, () -> {
+            taken.countDown();
+            if (taken.getCount() == 0) {
+                journalBytes.set(0);
+            }
+        });
+
+        assertTrue(taken.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testNoCheckpointIsTakenOfAnEmptyJournal() throws InterruptedException {
+        Checkpointer checkpointer = new Checkpointer(0, 20);
+        AtomicInteger taken = new AtomicInteger();
+        checkpointer.scheduleIntervalChecks(() -> 0, taken::incrementAndGet);
+
+        Thread.sleep(200);
+        assertEquals(0, taken.get());
+    }
+}
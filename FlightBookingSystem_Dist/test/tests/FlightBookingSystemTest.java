@@ -1,18 +1,40 @@
 package tests;
 
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
+import bcu.cmp5332.bookingsystem.model.Booking;
 import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.IdAllocator;
 import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.EntityType;
 import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.SeatType;
+import bcu.cmp5332.bookingsystem.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests adding flights/customers to the FlightBookingSystem.
  */
 class FlightBookingSystemTest {
 
+    @AfterEach
+    void resetIds() {
+        // Some tests install a block store or observe high IDs
+        IdAllocator.reset();
+    }
+
     @Test
     void testAddCustomer() {
         FlightBookingSystem fbs = new FlightBookingSystem();
@@ -66,4 +88,565 @@ class FlightBookingSystemTest {
             fbs.addCustomer(customer2); // adding same customer again might cause duplication
         });
     }
+
+    @Test
+    void testDeleteCustomerOnlyMarksCustomersDirty() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addCustomer(customer);
+        assertFalse(fbs.isDirty());
+
+        JournalEntry.deleteCustomer(customer).apply(fbs);
+
+        assertTrue(customer.isDeleted());
+        assertTrue(fbs.isDirty(EntityType.CUSTOMER));
+        assertFalse(fbs.isDirty(EntityType.FLIGHT));
+        assertFalse(fbs.isDirty(EntityType.BOOKING));
+
+        fbs.clearDirty();
+        assertFalse(fbs.isDirty());
+    }
+
+    @Test
+    void testFindCustomerByNormalizedEmailAndPhone() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Customer alice = new Customer(1, "Alice", "+44 121-555 0101", "Alice@Example.com", false);
+        fbs.addCustomer(alice);
+
+        assertSame(alice, fbs.findCustomerByEmail(" alice@example.COM "));
+        assertSame(alice, fbs.findCustomerByPhone("441215550101"));
+        assertNull(fbs.findCustomerByEmail("bob@example.com"));
+
+        fbs.setCustomerDeleted(alice, true);
+        assertNull(fbs.findCustomerByPhone("441215550101"));
+        fbs.setCustomerDeleted(alice, false);
+
+        Transaction tx = fbs.beginTransaction();
+        Customer bob = new Customer(2, "Bob", "67890", "bob@example.com", false);
+        tx.addCustomer(bob);
+        assertSame(bob, fbs.findCustomerByEmail("bob@example.com"));
+        tx.rollback();
+        assertNull(fbs.findCustomerByEmail("bob@example.com"));
+        assertNull(fbs.findCustomerByPhone("67890"));
+    }
+
+    @Test
+    void testSearchCustomersByNamePrefix() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Customer mary = new Customer(1, "Mary Ann Smith", "1", "mary@example.com", false);
+        Customer sam = new Customer(2, "sam", "2", "sam@example.com", false);
+        Customer smith = new Customer(3, "Smithers", "3", "smithers@example.com", false);
+        fbs.addCustomer(mary);
+        fbs.addCustomer(sam);
+        fbs.addCustomer(smith);
+
+        assertEquals(Arrays.asList(mary), fbs.searchCustomers("MARY a", 10));
+        assertEquals(Arrays.asList(mary), fbs.searchCustomers("ann", 10));
+        assertEquals(Arrays.asList(mary, smith), fbs.searchCustomers("smi", 10));
+        assertEquals(Arrays.asList(sam), fbs.searchCustomers("S", 1));
+        assertEquals(3, fbs.searchCustomers("", 10).size());
+        assertTrue(fbs.searchCustomers("x", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> fbs.searchCustomers("s", 0));
+
+        fbs.setCustomerDeleted(smith, true);
+        assertEquals(Arrays.asList(mary), fbs.searchCustomers("smi", 10));
+    }
+
+    @Test
+    void testRollbackRestoresSeatsPassengersAndFlags() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight flight = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 2, 1, 1, 450.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+
+        Transaction tx = fbs.beginTransaction();
+        Booking booking = new Booking(1, customer, flight, LocalDate.of(2025, 4, 1));
+        tx.addBooking(booking);
+        tx.addPassenger(flight, customer, SeatType.ECONOMY);
+        tx.setDeleted(customer, true);
+        tx.addFlight(new Flight(2, "BA456", "London", "Paris",
+            LocalDate.of(2025, 5, 1), 10, 5, 2, 120.0, false));
+        assertEquals(1, flight.getEconCapacity());
+
+        tx.rollback();
+
+        assertEquals(2, flight.getEconCapacity());
+        assertEquals(0, flight.getPassengerCount());
+        assertTrue(customer.getBookings().isEmpty());
+        assertFalse(customer.isDeleted());
+        assertEquals(1, fbs.getAllFlights().size());
+        assertThrows(IllegalStateException.class, tx::commit);
+    }
+
+    @Test
+    void testPassengerRosterCountsCustomersOncePerFlight() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight flight = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 5, 2, 1, 450.0, false);
+        Customer alice = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        Customer bob = new Customer(2, "Bob", "67890", "bob@example.com", false);
+        fbs.addFlight(flight);
+        fbs.addCustomer(alice);
+        fbs.addCustomer(bob);
+
+        Booking economy = new Booking(1, alice, flight, LocalDate.of(2025, 4, 1));
+        Booking business = new Booking(2, alice, flight, LocalDate.of(2025, 4, 2));
+        business.setSeatType(SeatType.BUSINESS);
+        fbs.bookSeat(economy);
+        fbs.bookSeat(business);
+        fbs.bookSeat(new Booking(3, bob, flight, LocalDate.of(2025, 4, 3)));
+
+        assertEquals(2, flight.getPassengerCount());
+        assertEquals(2, flight.getPassengerCount(SeatType.ECONOMY));
+        assertEquals(1, flight.getPassengerCount(SeatType.BUSINESS));
+        assertArrayEquals(new int[] {1, 2}, flight.getPassengerIds());
+        assertEquals(Arrays.asList(alice, bob), fbs.getPassengers(flight));
+
+        Transaction tx = fbs.beginTransaction();
+        tx.cancelBookingForFlight(alice, flight);
+        tx.removePassenger(flight, alice);
+        assertFalse(flight.hasPassenger(alice));
+        assertEquals(1, flight.getPassengerCount(SeatType.ECONOMY));
+        assertEquals(0, flight.getPassengerCount(SeatType.BUSINESS));
+
+        tx.rollback();
+        assertTrue(flight.hasPassenger(alice));
+        assertEquals(1, flight.getSeatsHeld(alice, SeatType.BUSINESS));
+        assertEquals(2, flight.getPassengerCount(SeatType.ECONOMY));
+    }
+
+    @Test
+    void testBookingIndexFollowsCancelAndRollback() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight flight = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 2, 1, 1, 450.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+        Booking booking = new Booking(7, customer, flight, LocalDate.of(2025, 4, 1));
+        fbs.addBooking(booking);
+        assertSame(booking, fbs.getBookingById(7));
+
+        Transaction tx = fbs.beginTransaction();
+        tx.cancelBookingForFlight(customer, flight);
+        assertThrows(IllegalArgumentException.class, () -> fbs.getBookingById(7));
+
+        tx.rollback();
+        assertSame(booking, fbs.getBookingById(7));
+        assertThrows(IllegalArgumentException.class, () -> fbs.addBooking(booking));
+    }
+
+    @Test
+    void testFlightBookingsFollowSeatClassAndRebooking() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight first = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 2, 1, 1, 450.0, false);
+        Flight second = new Flight(2, "BA456", "London", "Paris",
+            LocalDate.of(2025, 5, 1), 10, 5, 2, 120.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(first);
+        fbs.addFlight(second);
+        fbs.addCustomer(customer);
+        Booking booking = new Booking(3, customer, first, LocalDate.of(2025, 4, 1));
+        booking.setSeatType(SeatType.ECONOMY);
+        fbs.addBooking(booking);
+        assertTrue(first.getBookings(SeatType.ECONOMY).contains(booking));
+
+        Transaction tx = fbs.beginTransaction();
+        tx.moveBooking(booking, second, SeatType.FIRST);
+        assertTrue(first.getBookings().isEmpty());
+        assertTrue(second.getBookings(SeatType.FIRST).contains(booking));
+        assertTrue(second.getBookings(SeatType.ECONOMY).isEmpty());
+
+        tx.rollback();
+        assertEquals(1, first.getBookings(SeatType.ECONOMY).size());
+        assertTrue(second.getBookings().isEmpty());
+    }
+
+    @Test
+    void testCustomerBookingsIndexedByIdAndFlight() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight first = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 10, 1, 1, 450.0, false);
+        Flight second = new Flight(2, "BA456", "London", "Paris",
+            LocalDate.of(2025, 5, 1), 10, 5, 2, 120.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(first);
+        fbs.addFlight(second);
+        fbs.addCustomer(customer);
+        Booking a = new Booking(5, customer, first, LocalDate.of(2025, 4, 1));
+        Booking b = new Booking(3, customer, second, LocalDate.of(2025, 4, 2));
+        Booking c = new Booking(9, customer, first, LocalDate.of(2025, 4, 3));
+        fbs.addBooking(a);
+        fbs.addBooking(b);
+        fbs.addBooking(c);
+
+        assertEquals(Arrays.asList(a, b, c), new ArrayList<>(customer.getBookings()));
+        assertEquals(Arrays.asList(a, c), new ArrayList<>(customer.getBookings(first)));
+        assertSame(b, customer.getBooking(3));
+        assertNull(customer.getBooking(4));
+
+        fbs.moveBooking(c, second, SeatType.ECONOMY);
+        assertEquals(Arrays.asList(b, c), new ArrayList<>(customer.getBookings(second)));
+
+        Transaction tx = fbs.beginTransaction();
+        tx.cancelBookingForFlight(customer, second);
+        assertEquals(Arrays.asList(a), new ArrayList<>(customer.getBookings()));
+        assertTrue(customer.getBookings(second).isEmpty());
+
+        tx.rollback();
+        assertEquals(Arrays.asList(a, b, c), new ArrayList<>(customer.getBookings()));
+        assertEquals(Arrays.asList(b, c), new ArrayList<>(customer.getBookings(second)));
+    }
+
+    @Test
+    void testRollingBackCancelKeepsBookingsAddedMeanwhile() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight first = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 10, 1, 1, 450.0, false);
+        Flight second = new Flight(2, "BA456", "London", "Paris",
+            LocalDate.of(2025, 5, 1), 10, 5, 2, 120.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(first);
+        fbs.addFlight(second);
+        fbs.addCustomer(customer);
+        Booking cancelled = new Booking(1, customer, first, LocalDate.of(2025, 4, 1));
+        fbs.addBooking(cancelled);
+
+        Transaction tx = fbs.beginTransaction();
+        tx.cancelBookingForFlight(customer, first);
+        // Another command books the same customer onto another flight
+        Booking added = new Booking(2, customer, second, LocalDate.of(2025, 4, 2));
+        fbs.addBooking(added);
+
+        tx.rollback();
+        assertSame(cancelled, customer.getBooking(1));
+        assertSame(added, customer.getBooking(2));
+        assertSame(added, fbs.getBookingById(2));
+        assertEquals(Arrays.asList(added), new ArrayList<>(customer.getBookings(second)));
+        assertEquals(Arrays.asList(cancelled), new ArrayList<>(customer.getBookings(first)));
+    }
+
+    @Test
+    void testBookingsBetweenDatesUsesDateIndex() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight flight = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 10, 5, 2, 450.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+        Booking early = new Booking(1, customer, flight, LocalDate.of(2025, 3, 1));
+        Booking middle = new Booking(2, customer, flight, LocalDate.of(2025, 3, 5));
+        Booking late = new Booking(3, customer, flight, LocalDate.of(2025, 3, 9));
+        fbs.addBooking(late);
+        fbs.addBooking(early);
+        fbs.addBooking(middle);
+
+        assertEquals(Arrays.asList(early, middle), fbs.getBookingsBetween(
+            LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 7)));
+
+        fbs.changeBookingDate(middle, LocalDate.of(2025, 3, 8));
+        assertEquals(Arrays.asList(middle, late), fbs.getBookingsBetween(
+            LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 31)));
+        assertTrue(fbs.getBookingsOn(LocalDate.of(2025, 3, 5)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> fbs.getBookingsBetween(
+            LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 1)));
+    }
+
+    @Test
+    void testSearchFlightsByRouteAndDate() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight april = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 10, 5, 2, 450.0, false);
+        Flight may = new Flight(2, "LH124", "BERLIN", "new york",
+            LocalDate.of(2025, 5, 20), 10, 5, 2, 450.0, false);
+        Flight other = new Flight(3, "BA456", "London", "New York",
+            LocalDate.of(2025, 4, 25), 10, 5, 2, 120.0, false);
+        fbs.addFlight(may);
+        fbs.addFlight(april);
+        fbs.addFlight(other);
+
+        assertEquals(Arrays.asList(april, may), fbs.searchFlights(" berlin ", "New York", null, null));
+        assertEquals(Arrays.asList(april), fbs.searchFlights("Berlin", null,
+            LocalDate.of(2025, 4, 1), LocalDate.of(2025, 4, 30)));
+        assertEquals(Arrays.asList(april, other), fbs.searchFlights("", "new york",
+            null, LocalDate.of(2025, 4, 30)));
+
+        fbs.setFlightDeleted(april, true);
+        assertEquals(Arrays.asList(other, may), fbs.searchFlights(null, null, null, null));
+        assertTrue(fbs.searchFlights("Paris", null, null, null).isEmpty());
+    }
+
+    @Test
+    void testUpcomingFlightsFollowSystemDate() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight april = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 10, 5, 2, 450.0, false);
+        Flight may = new Flight(2, "BA456", "London", "Paris",
+            LocalDate.of(2025, 5, 20), 10, 5, 2, 120.0, false);
+        fbs.addFlight(may);
+        fbs.addFlight(april);
+
+        fbs.setSystemDate(LocalDate.of(2025, 4, 1));
+        assertEquals(Arrays.asList(april, may), fbs.getUpcomingFlights());
+
+        fbs.setSystemDate(LocalDate.of(2025, 4, 20));
+        assertEquals(Arrays.asList(may), fbs.getUpcomingFlights());
+
+        fbs.setFlightDeleted(may, true);
+        assertTrue(fbs.getUpcomingFlights().isEmpty());
+    }
+
+    @Test
+    void testFlightAndCustomerListsAreSharedUntilChanged() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight flight = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 10, 5, 2, 450.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(flight);
+        fbs.addCustomer(customer);
+
+        assertSame(fbs.getFlights(), fbs.getFlights());
+        assertSame(fbs.getCustomers(), fbs.getCustomers());
+        assertThrows(UnsupportedOperationException.class, () -> fbs.getFlights().clear());
+
+        fbs.setFlightDeleted(flight, true);
+        fbs.setCustomerDeleted(customer, true);
+        assertTrue(fbs.getFlights().isEmpty());
+        assertTrue(fbs.getCustomers().isEmpty());
+        assertEquals(1, fbs.getAllFlights().size());
+
+        Transaction tx = fbs.beginTransaction();
+        tx.setDeleted(flight, false);
+        tx.rollback();
+        assertTrue(fbs.getFlights().isEmpty());
+    }
+
+    @Test
+    void testRegistriesSurviveGrowthAndRemoval() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        for (int id = 1; id <= 100; id++) {
+            fbs.addFlight(new Flight(id, "F" + id, "Berlin", "Paris",
+                LocalDate.of(2025, 4, 20), 10, 5, 2, 100.0, false));
+        }
+        Transaction tx = fbs.beginTransaction();
+        for (int id = 101; id <= 300; id++) {
+            tx.addFlight(new Flight(id, "F" + id, "Berlin", "Paris",
+                LocalDate.of(2025, 4, 20), 10, 5, 2, 100.0, false));
+        }
+        tx.rollback();
+
+        assertEquals(100, fbs.getAllFlights().size());
+        for (int id = 1; id <= 100; id++) {
+            assertEquals("F" + id, fbs.getFlightById(id).getFlightNumber());
+        }
+        assertThrows(IllegalArgumentException.class, () -> fbs.getFlightById(101));
+    }
+
+    @Test
+    void testUpcomingSeatCountFollowsBookingsAndRemovals() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        fbs.setSystemDate(LocalDate.of(2025, 4, 1));
+        Flight past = new Flight(1, "LH100", "Berlin", "Paris",
+            LocalDate.of(2025, 3, 1), 10, 5, 2, 100.0, false);
+        Flight april = new Flight(2, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 10, 5, 2, 450.0, false);
+        Flight may = new Flight(3, "BA456", "London", "Paris",
+            LocalDate.of(2025, 5, 20), 4, 3, 1, 120.0, false);
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(past);
+        fbs.addFlight(april);
+        fbs.addFlight(may);
+        fbs.addCustomer(customer);
+        assertEquals(14, fbs.countUpcomingSeats(SeatType.ECONOMY));
+
+        april.addPassenger(customer, SeatType.ECONOMY);
+        assertEquals(9, april.getEconCapacity());
+        assertEquals(13, fbs.countUpcomingSeats(SeatType.ECONOMY));
+
+        fbs.setFlightDeleted(april, true);
+        assertTrue(april.isDeleted());
+        assertEquals(4, fbs.countUpcomingSeats(SeatType.ECONOMY));
+
+        // Adding a flight in a transaction and rolling back frees its slot, and
+        // the flights left keep their own seats.
+        Transaction tx = fbs.beginTransaction();
+        Flight june = new Flight(4, "BA789", "London", "Rome",
+            LocalDate.of(2025, 6, 1), 50, 0, 0, 80.0, false);
+        tx.addFlight(june);
+        tx.addPassenger(may, customer, SeatType.FIRST);
+        assertEquals(54, fbs.countUpcomingSeats(SeatType.ECONOMY));
+        tx.rollback();
+        assertEquals(4, fbs.countUpcomingSeats(SeatType.ECONOMY));
+        assertEquals(1, fbs.countUpcomingSeats(SeatType.FIRST));
+        assertEquals(50, june.getEconCapacity());
+        assertEquals(9, fbs.getFlightById(2).getEconCapacity());
+    }
+
+    @Test
+    void testConcurrentIdAllocationNeverRepeats() throws InterruptedException {
+        Map<EntityType, Integer> marks = new EnumMap<>(EntityType.class);
+        IdAllocator.useBlockStore((type, from, count) -> {
+            synchronized (marks) {
+                int start = Math.max(from, marks.getOrDefault(type, 0));
+                marks.put(type, start + count);
+                return start;
+            }
+        }, 7);
+        Customer existing = new Customer(5000, "Bob", "1", "bob@example.com", false);
+
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    int id = new Customer("Alice", "12345", "alice@example.com").getId();
+                    assertTrue(ids.add(id));
+                    assertTrue(id > existing.getId());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8000, ids.size());
+        assertTrue(marks.get(EntityType.CUSTOMER) > 5000 + 8000);
+    }
+
+    @Test
+    void testConcurrentSalesNeverOversell() throws InterruptedException {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight[] flights = new Flight[4];
+        for (int i = 0; i < flights.length; i++) {
+            flights[i] = new Flight(i + 1, "F" + i, "Berlin", "Paris",
+                LocalDate.of(2025, 4, 20), 50, 0, 0, 100.0, false);
+            fbs.addFlight(flights[i]);
+        }
+        Customer customer = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addCustomer(customer);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    Booking booking = new Booking(customer, flights[i % flights.length], LocalDate.of(2025, 4, 1));
+                    try {
+                        fbs.bookSeat(booking);
+                        sold.incrementAndGet();
+                    } catch (IllegalStateException ex) {
+                        refused.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200, sold.get());
+        assertEquals(600, refused.get());
+        assertEquals(200, customer.getBookings().size());
+        assertEquals(200, fbs.getBookingsOn(LocalDate.of(2025, 4, 1)).size());
+        for (Flight flight : flights) {
+            assertEquals(0, flight.getEconCapacity());
+            assertEquals(50, flight.getBookings(SeatType.ECONOMY).size());
+        }
+    }
+
+    @Test
+    void testReservationsMadeWhileFlightsAreAddedAreKept() throws InterruptedException {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight flight = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 1000000, 0, 0, 450.0, false);
+        fbs.addFlight(flight);
+
+        AtomicInteger taken = new AtomicInteger();
+        AtomicBoolean adding = new AtomicBoolean(true);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                while (adding.get()) {
+                    if (flight.tryReserve(SeatType.ECONOMY, 1)) {
+                        taken.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        // Enough flights for the inventory to grow many times
+        for (int i = 2; i <= 20000; i++) {
+            fbs.addFlight(new Flight(i, "F" + i, "Berlin", "Paris",
+                LocalDate.of(2025, 4, 20), 10, 0, 0, 100.0, false));
+        }
+        adding.set(false);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000000, taken.get() + flight.getEconCapacity());
+        assertEquals(10, fbs.getFlightById(20000).getEconCapacity());
+    }
+
+    @Test
+    void testEditingOneOfTwoBookingsKeepsTheOtherSeat() throws IOException {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Flight first = new Flight(1, "LH123", "Berlin", "New York",
+            LocalDate.of(2025, 4, 20), 5, 2, 1, 450.0, false);
+        Flight second = new Flight(2, "BA456", "London", "Paris",
+            LocalDate.of(2025, 5, 1), 10, 5, 2, 120.0, false);
+        Customer alice = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addFlight(first);
+        fbs.addFlight(second);
+        fbs.addCustomer(alice);
+        Booking economy = new Booking(1, alice, first, LocalDate.of(2025, 4, 1));
+        Booking business = new Booking(2, alice, first, LocalDate.of(2025, 4, 2));
+        business.setSeatType(SeatType.BUSINESS);
+        fbs.bookSeat(economy);
+        fbs.bookSeat(business);
+        FlightBookingSystem replayed = fbs.copy();
+
+        Transaction tx = fbs.beginTransaction();
+        tx.unlinkPassenger(first, alice, SeatType.BUSINESS);
+        tx.addPassenger(second, alice, SeatType.BUSINESS);
+        tx.moveBooking(business, second, SeatType.BUSINESS);
+        assertTrue(first.hasPassenger(alice));
+        assertEquals(1, first.getSeatsHeld(alice, SeatType.ECONOMY));
+        assertEquals(0, first.getPassengerCount(SeatType.BUSINESS));
+        assertTrue(second.hasPassenger(alice));
+
+        tx.rollback();
+        assertEquals(1, first.getSeatsHeld(alice, SeatType.BUSINESS));
+        assertFalse(second.hasPassenger(alice));
+
+        // Replaying the same edit from the journal leaves the economy seat in place
+        fbs.moveBooking(business, second, SeatType.BUSINESS);
+        JournalEntry.parse(JournalEntry.editBooking(business).toLine()).apply(replayed);
+        Flight replayedFirst = replayed.getFlightById(1);
+        Customer replayedAlice = replayed.getCustomerById(1);
+        assertEquals(1, replayedFirst.getSeatsHeld(replayedAlice, SeatType.ECONOMY));
+        assertEquals(0, replayedFirst.getSeatsHeld(replayedAlice, SeatType.BUSINESS));
+        assertTrue(replayed.getFlightById(2).hasPassenger(replayedAlice));
+    }
+
+    @Test
+    void testClosingAnUnfinishedTransactionRollsBackAndLetsCheckpointsIn() {
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        Customer alice = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        fbs.addCustomer(alice);
+
+        try (Transaction tx = fbs.beginTransaction()) {
+            tx.setDeleted(alice, true);
+            assertFalse(fbs.exclusiveLock().tryLock());
+        }
+        assertFalse(alice.isDeleted());
+        assertTrue(fbs.exclusiveLock().tryLock());
+        fbs.exclusiveLock().unlock();
+    }
 }
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalDate;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Tests for Flight class that uses separate seat capacities
@@ -43,7 +45,7 @@ class FlightTest {
         assertEquals(500.0, flight.getBasePrice(), 0.0001);
 
         assertFalse(flight.isDeleted());
-        assertTrue(flight.getPassengers().isEmpty());
+        assertEquals(0, flight.getPassengerCount());
     }
 
     @Test
@@ -80,4 +82,48 @@ class FlightTest {
         flight.addPassenger(c4, SeatType.BUSINESS);
         assertEquals(1, flight.getBusinessCapacity()); // was 10, now 9 left
     }
+
+    @Test
+    void testConcurrentReservationsNeverOversell() throws InterruptedException {
+        // 8 threads race for 1000 economy seats in ones and twos while also
+        // giving some back; the class must never go negative and every seat
+        // taken must be accounted for.
+        Flight flight = new Flight(3, "HOL1", "London", "Malaga",
+            LocalDate.of(2025, 8, 1), 1000, 0, 0, 120.0, false);
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger negative = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int seatsPerSale = t % 2 + 1;
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 0; i < 20000; i++) {
+                    if (flight.tryReserve(SeatType.ECONOMY, seatsPerSale)) {
+                        if (i % 3 == 0) {
+                            flight.release(SeatType.ECONOMY, seatsPerSale);
+                        } else {
+                            taken.addAndGet(seatsPerSale);
+                        }
+                    }
+                    if (flight.getEconCapacity() < 0) {
+                        negative.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, negative.get());
+        assertEquals(1000, taken.get() + flight.getEconCapacity());
+        assertFalse(flight.tryReserve(SeatType.BUSINESS, 1));
+    }
 }
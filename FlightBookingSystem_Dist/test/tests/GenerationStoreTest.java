@@ -0,0 +1,270 @@
+package tests;
+
+import bcu.cmp5332.bookingsystem.data.DataManager;
+import bcu.cmp5332.bookingsystem.data.Durability;
+import bcu.cmp5332.bookingsystem.data.GenerationStore;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests committing data files as generations, and recovering a consistent
+ * generation after a crash part-way through a store.
+ */
+class GenerationStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testUnforcedGenerationIsDurableOnlyOnceSynced() throws IOException {
+        GenerationStore store = open(Durability.NONE);
+        recover(store);
+        TextManager customers = new TextManager(dir.resolve("customers.txt").toFile(), "Alice");
+
+        store.commit(new FlightBookingSystem(), managers(customers));
+        assertEquals(1, store.getGeneration());
+        assertEquals(0, store.getDurableGeneration());
+
+        store.sync();
+        assertEquals(1, store.getDurableGeneration());
+    }
+
+    @Test
+    void testForcedGenerationIsDurableOnCommit() throws IOException {
+        GenerationStore store = open(Durability.ON_COMMIT);
+        recover(store);
+
+        store.commit(new FlightBookingSystem(), managers(new TextManager(dir.resolve("customers.txt").toFile(), "Alice")));
+        assertEquals(1, store.getDurableGeneration());
+    }
+
+    @Test
+    void testUncommittedNewFileIsDiscarded() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Alice"));
+        // Crashed after writing the new file but before the marker
+        write(new File(customers.getPath() + ".new"), "Bob");
+
+        GenerationStore store = open(Durability.ON_COMMIT);
+        recover(store, new TextManager(customers, ""));
+        assertEquals(1, store.getGeneration());
+        assertEquals("Alice", read(customers));
+        assertFalse(new File(customers.getPath() + ".new").exists());
+    }
+
+    @Test
+    void testCommittedRenamesAreRolledForward() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        File newFile = new File(customers.getPath() + ".new");
+        File previous = new File(customers.getPath() + ".prev");
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Alice"));
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Bob"));
+        // Crashed after the marker was replaced but before the new file was renamed in
+        Files.move(customers.toPath(), newFile.toPath());
+        Files.move(previous.toPath(), customers.toPath());
+
+        GenerationStore store = open(Durability.ON_COMMIT);
+        recover(store, new TextManager(customers, ""));
+        assertEquals(2, store.getGeneration());
+        assertEquals("Bob", read(customers));
+        assertEquals("Alice", read(previous));
+        assertFalse(newFile.exists());
+    }
+
+    @Test
+    void testRollForwardWithoutLiveFileKeepsPreviousVersion() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        File newFile = new File(customers.getPath() + ".new");
+        File previous = new File(customers.getPath() + ".prev");
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Alice"));
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Bob"));
+        // Crashed between moving the live file aside and renaming the new one in
+        Files.move(customers.toPath(), newFile.toPath());
+
+        GenerationStore store = open(Durability.ON_COMMIT);
+        recover(store, new TextManager(customers, ""));
+        assertEquals(2, store.getGeneration());
+        assertEquals("Bob", read(customers));
+        assertEquals("Alice", read(previous));
+    }
+
+    @Test
+    void testOnlyLoadedFilesAreChecksummed() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Alice"));
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Bob"));
+        // Same length, different content
+        write(customers, "Bxb");
+
+        GenerationStore store = open(Durability.ON_COMMIT);
+        store.recover(managers(new TextManager(customers, "")), Collections.<DataManager>emptyList());
+        assertEquals(2, store.getGeneration());
+
+        // Checked in full, the damage is found; a forced generation is never rolled back
+        GenerationStore checking = open(Durability.ON_COMMIT);
+        assertThrows(IOException.class, () -> recover(checking, new TextManager(customers, "")));
+        assertEquals("Bxb", read(customers));
+    }
+
+    @Test
+    void testRejectedFileIsLeftOutOfRecovery() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        File snapshot = dir.resolve("snapshot.bin").toFile();
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Alice"), new TextManager(snapshot, "Alice"));
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Bob"), new TextManager(snapshot, "Bob"));
+        write(snapshot, "B");
+
+        GenerationStore store = open(Durability.ON_COMMIT);
+        TextManager damaged = new TextManager(snapshot, "");
+        assertThrows(IOException.class, () -> recover(store, damaged));
+        assertEquals(new File(snapshot.getPath() + ".rejected"), store.reject(damaged));
+
+        store.recover(managers(new TextManager(customers, ""), damaged), managers(new TextManager(customers, "")));
+        assertEquals(2, store.getGeneration());
+        assertEquals("Bob", read(customers));
+        assertFalse(snapshot.exists());
+        assertEquals("B", read(new File(snapshot.getPath() + ".rejected")));
+        assertEquals("Alice", read(new File(snapshot.getPath() + ".prev.rejected")));
+    }
+
+    @Test
+    void testMarkerRecordsWhetherGenerationWasForced() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        File marker = dir.resolve("generation.txt").toFile();
+        commit(Durability.NONE, new TextManager(customers, "Alice"));
+        assertEquals("1", read(marker).split("\\R")[0]);
+
+        // Recovery forces the files and marks the generation durable
+        GenerationStore store = open(Durability.NONE);
+        recover(store, new TextManager(customers, ""));
+        assertEquals(1, store.getDurableGeneration());
+        assertEquals("1::durable", read(marker).split("\\R")[0]);
+
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Bob"));
+        assertEquals("2::durable", read(marker).split("\\R")[0]);
+    }
+
+    @Test
+    void testFileThatNeverReachedDiskRollsBackToPreviousGeneration() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        File flights = dir.resolve("flights.txt").toFile();
+        commit(Durability.NONE, new TextManager(customers, "Alice"), new TextManager(flights, "LH123"));
+        commit(Durability.NONE, new TextManager(customers, "Bob"), new TextManager(flights, "BA456"));
+        // The new customers file was never written back before the crash
+        write(customers, "Bo");
+
+        GenerationStore store = open(Durability.NONE);
+        recover(store, new TextManager(customers, ""), new TextManager(flights, ""));
+        assertEquals(1, store.getGeneration());
+        assertEquals("Alice", read(customers));
+        assertEquals("LH123", read(flights));
+    }
+
+    @Test
+    void testDamagedMarkerFallsBackToPreviousMarker() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Alice"));
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Bob"));
+        write(dir.resolve("generation.txt").toFile(), "2\ncustomers.txt::2::");
+
+        GenerationStore store = open(Durability.ON_COMMIT);
+        recover(store, new TextManager(customers, ""));
+        assertEquals(1, store.getGeneration());
+        assertEquals("Alice", read(customers));
+
+        // The repaired marker is used from then on
+        store = open(Durability.ON_COMMIT);
+        recover(store, new TextManager(customers, ""));
+        assertEquals(1, store.getGeneration());
+    }
+
+    @Test
+    void testNoConsistentGenerationFailsRecovery() throws IOException {
+        File customers = dir.resolve("customers.txt").toFile();
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Alice"));
+        commit(Durability.ON_COMMIT, new TextManager(customers, "Bob"));
+        write(customers, "Carol");
+        write(new File(customers.getPath() + ".prev"), "Dave");
+
+        GenerationStore store = open(Durability.ON_COMMIT);
+        assertThrows(IOException.class, () -> recover(store, new TextManager(customers, "")));
+    }
+
+    /**
+     * Commits one generation with a store that is then thrown away, as if the
+     * process had stopped.
+     */
+    private void commit(Durability durability, DataManager... written) throws IOException {
+        GenerationStore store = open(durability);
+        recover(store, written);
+        store.commit(new FlightBookingSystem(), managers(written));
+    }
+
+    /**
+     * Recovers the given files, checking each of them in full as if about to load it.
+     */
+    private static void recover(GenerationStore store, DataManager... managers) throws IOException {
+        store.recover(managers(managers), managers(managers));
+    }
+
+    private static void write(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    private GenerationStore open(Durability durability) {
+        return new GenerationStore(dir.resolve("generation.txt").toString(), durability, 1000);
+    }
+
+    private static List<DataManager> managers(DataManager... managers) {
+        return Arrays.asList(managers);
+    }
+
+    /**
+     * Writes a fixed text to its file.
+     */
+    private static class TextManager implements DataManager {
+        private final File file;
+        private final String text;
+
+        TextManager(File file, String text) {
+            this.file = file;
+            this.text = text;
+        }
+
+        @Override
+        public void loadData(FlightBookingSystem fbs) {
+        }
+
+        @Override
+        public void storeData(FlightBookingSystem fbs, OutputStream out) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public boolean isDirty(FlightBookingSystem fbs) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package tests;
+
+import bcu.cmp5332.bookingsystem.data.CommitMode;
+import bcu.cmp5332.bookingsystem.data.Journal;
+import bcu.cmp5332.bookingsystem.data.JournalEntry;
+import bcu.cmp5332.bookingsystem.model.Booking;
+import bcu.cmp5332.bookingsystem.model.Customer;
+import bcu.cmp5332.bookingsystem.model.Flight;
+import bcu.cmp5332.bookingsystem.model.FlightBookingSystem;
+import bcu.cmp5332.bookingsystem.model.SeatType;
+import bcu.cmp5332.bookingsystem.model.Transaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests replaying the journal after a crash left its last write unfinished or
+ * a checkpoint unfinished.
+ */
+class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testTornTailIsCutOffBeforeTheNextAppend() throws IOException {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = open(file);
+        journal.append(JournalEntry.addCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false)));
+        journal.close();
+        long complete = file.length();
+        appendRaw(file, "ADD_CUSTOMER::2::Bo");
+
+        journal = open(file);
+        assertEquals(1, journal.replay(new FlightBookingSystem(), 0));
+        assertEquals(complete, file.length());
+
+        journal.append(JournalEntry.addCustomer(new Customer(3, "Carol", "67890", "carol@example.com", false)));
+        journal.close();
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        assertEquals(2, open(file).replay(fbs, 0));
+        assertEquals("Carol", fbs.getCustomerById(3).getName());
+    }
+
+    @Test
+    void testUnparseableLastLineIsSkippedAndCutOff() throws IOException {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = open(file);
+        journal.append(JournalEntry.addCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false)));
+        journal.close();
+        long complete = file.length();
+        appendRaw(file, "ADD_CUSTOMER::2\n");
+
+        assertEquals(1, open(file).replay(new FlightBookingSystem(), 0));
+        assertEquals(complete, file.length());
+    }
+
+    @Test
+    void testUnparseableLineBeforeTheLastFailsReplay() throws IOException {
+        File file = dir.resolve("journal.txt").toFile();
+        appendRaw(file, "GARBAGE\nDELETE_CUSTOMER::1\n");
+
+        assertThrows(IOException.class, () -> open(file).replay(new FlightBookingSystem(), 0));
+    }
+
+    @Test
+    void testLastEntryThatCannotBeAppliedFailsReplay() throws IOException {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = open(file);
+        journal.append(JournalEntry.addCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false)));
+        journal.close();
+        appendRaw(file, "DELETE_CUSTOMER::99\n");
+
+        assertThrows(IOException.class, () -> open(file).replay(new FlightBookingSystem(), 0));
+    }
+
+    @Test
+    void testSegmentsOfFailedCheckpointsAreReplayedInOrder() throws IOException {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = open(file);
+        journal.append(JournalEntry.addCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false)));
+        journal.rotate(0);
+        // The checkpoint failed, so the next one rotates from the same generation
+        journal.append(JournalEntry.addCustomer(new Customer(2, "Bob", "23456", "bob@example.com", false)));
+        journal.rotate(0);
+        journal.append(JournalEntry.deleteCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false)));
+        journal.close();
+
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        assertEquals(3, open(file).replay(fbs, 0));
+        assertTrue(fbs.getCustomerById(1).isDeleted());
+        assertEquals("Bob", fbs.getCustomerById(2).getName());
+    }
+
+    @Test
+    void testSegmentsCoveredByTheLoadedGenerationAreDiscarded() throws IOException {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = open(file);
+        journal.append(JournalEntry.addCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false)));
+        journal.rotate(0);
+        journal.append(JournalEntry.addCustomer(new Customer(2, "Bob", "23456", "bob@example.com", false)));
+        journal.close();
+
+        // Generation 1 was committed with Alice before the crash
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        fbs.addCustomer(new Customer(1, "Alice", "12345", "alice@example.com", false));
+        assertEquals(1, open(file).replay(fbs, 1));
+        assertEquals("Bob", fbs.getCustomerById(2).getName());
+        assertFalse(new File(file.getPath() + ".0").exists());
+    }
+
+    @Test
+    void testBookingOfNewCustomerIsJournaledAfterTheCustomer() throws Exception {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = open(file);
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        fbs.addFlight(newFlight());
+        Customer alice = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        CountDownLatch added = new CountDownLatch(1);
+        CountDownLatch booked = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread creator = new Thread(() -> {
+            try (Transaction tx = fbs.beginTransaction()) {
+                tx.addCustomer(alice);
+                added.countDown();
+                // Give the booking every chance to be journaled first
+                booked.await(200, TimeUnit.MILLISECONDS);
+                journal.append(tx, JournalEntry.addCustomer(alice));
+                tx.commit();
+            } catch (IOException | InterruptedException ex) {
+                failure.set(ex);
+            }
+        });
+        creator.start();
+
+        added.await();
+        try (Transaction tx = fbs.beginTransaction()) {
+            Booking booking = new Booking(1, fbs.getCustomerById(1), fbs.getFlightById(1), LocalDate.of(2025, 4, 1));
+            tx.bookSeat(booking);
+            journal.append(tx, JournalEntry.addBooking(booking));
+            booked.countDown();
+            tx.commit();
+        }
+        creator.join();
+        assertNull(failure.get());
+        journal.close();
+
+        FlightBookingSystem replayed = new FlightBookingSystem();
+        replayed.addFlight(newFlight());
+        assertEquals(2, open(file).replay(replayed, 0));
+        assertEquals(1, replayed.getCustomerById(1).getBookings().size());
+        assertTrue(replayed.getFlightById(1).hasPassenger(replayed.getCustomerById(1)));
+    }
+
+    @Test
+    void testConcurrentGroupedAppendsAreDurableOnceAwaited() throws Exception {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = new Journal(file.getPath(), CommitMode.GROUPED, 5, 16, 64, 0);
+        Thread[] threads = new Thread[8];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 25; i++) {
+                        Customer customer = new Customer(thread * 100 + i + 1, "C" + thread + "-" + i,
+                            "12345", "c@example.com", false);
+                        JournalEntry entry = JournalEntry.addCustomer(customer);
+                        journal.append(entry).get();
+                        // Everything awaited is already in the file
+                        String written = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+                        assertTrue(written.contains(entry.toLine() + System.lineSeparator()), entry.toLine());
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        journal.close();
+
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        assertEquals(200, open(file).replay(fbs, 0));
+        assertEquals(200, fbs.getAllCustomers().size());
+    }
+
+    @Test
+    void testFlushWritesQueuedAsyncEntries() throws Exception {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = new Journal(file.getPath(), CommitMode.ASYNC, 600_000, 16, 64, 600_000);
+        List<CompletableFuture<Void>> queued = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            queued.add(journal.append(JournalEntry.addCustomer(
+                new Customer(i, "C" + i, "12345", "c@example.com", false))));
+        }
+        assertFalse(file.exists());
+
+        journal.flush();
+        for (CompletableFuture<Void> durable : queued) {
+            assertTrue(durable.isDone() && !durable.isCompletedExceptionally());
+        }
+        journal.close();
+        assertEquals(3, open(file).replay(new FlightBookingSystem(), 0));
+    }
+
+    @Test
+    void testFailedGroupCommitFailsEveryWaiterInTheGroup() throws Exception {
+        // The journal's directory does not exist, so the group cannot be written
+        File missing = dir.resolve("missing").toFile();
+        File file = new File(missing, "journal.txt");
+        Journal journal = new Journal(file.getPath(), CommitMode.GROUPED, 200, 16, 64, 0);
+        List<CompletableFuture<Void>> group = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            group.add(journal.append(JournalEntry.addCustomer(
+                new Customer(i, "C" + i, "12345", "c@example.com", false))));
+        }
+        for (CompletableFuture<Void> durable : group) {
+            ExecutionException ex = assertThrows(ExecutionException.class, durable::get);
+            assertTrue(ex.getCause() instanceof IOException, String.valueOf(ex.getCause()));
+        }
+
+        // The committer carries on with the next group
+        assertTrue(missing.mkdir());
+        journal.append(JournalEntry.addCustomer(new Customer(6, "C6", "12345", "c@example.com", false))).get();
+        journal.close();
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        assertEquals(1, open(file).replay(fbs, 0));
+        assertEquals("C6", fbs.getCustomerById(6).getName());
+    }
+
+    @Test
+    void testReplayOverSnapshotHoldingTheEntriesChangesNothing() throws IOException {
+        File file = dir.resolve("journal.txt").toFile();
+        Journal journal = open(file);
+        for (JournalEntry entry : bookingHistory()) {
+            journal.append(entry);
+        }
+        journal.close();
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        assertEquals(10, open(file).replay(fbs, 0));
+
+        // The system now holds every entry, as a snapshot stored after them would
+        assertEquals(10, open(file).replay(fbs, 0));
+        Flight first = fbs.getFlightById(1);
+        Flight second = fbs.getFlightById(2);
+        assertTrue(first.isDeleted());
+        assertTrue(fbs.getCustomerById(1).isDeleted());
+        assertEquals(1, fbs.getAllBookings().size());
+        assertSame(first, fbs.getBookingById(2).getFlight());
+        assertEquals(0, first.getEconCapacity());
+        assertEquals(0, second.getEconCapacity());
+        assertFalse(first.hasPassenger(fbs.getCustomerById(1)));
+        assertFalse(second.hasPassenger(fbs.getCustomerById(1)));
+        assertEquals(1, first.getSeatsHeld(fbs.getCustomerById(2), SeatType.ECONOMY));
+    }
+
+    @Test
+    void testReplayedBookingsAreLinkedWhenTheSnapshotCabinIsFull() {
+        List<JournalEntry> history = bookingHistory();
+        FlightBookingSystem fbs = new FlightBookingSystem();
+        for (JournalEntry entry : history) {
+            entry.apply(fbs);
+        }
+        // Customer 1's booking was edited and cancelled after the snapshot was taken
+        FlightBookingSystem snapshot = new FlightBookingSystem();
+        for (JournalEntry entry : history.subList(0, 5)) {
+            entry.apply(snapshot);
+        }
+        Booking late = new Booking(3, snapshot.getCustomerById(2), snapshot.getFlightById(2), LocalDate.of(2025, 4, 1));
+        late.setSeatType(SeatType.ECONOMY);
+        snapshot.bookSeat(late);
+
+        // The edit moves booking 1 onto a flight the snapshot has already sold out
+        history.get(5).apply(snapshot);
+        Flight second = snapshot.getFlightById(2);
+        assertSame(second, snapshot.getBookingById(1).getFlight());
+        assertEquals(0, second.getEconCapacity());
+        assertTrue(second.hasPassenger(snapshot.getCustomerById(1)));
+        assertFalse(snapshot.getFlightById(1).hasPassenger(snapshot.getCustomerById(1)));
+    }
+
+    /**
+     * Returns the entries of a short history on two flights with one economy seat
+     * each: customer 1 books the first, moves to the second and cancels, customer 2
+     * then takes the first flight's seat, and customer 1 and the first flight are
+     * deleted.
+     */
+    private static List<JournalEntry> bookingHistory() {
+        Flight first = new Flight(1, "LH123", "Berlin", "New York", LocalDate.of(2025, 4, 20), 1, 0, 0, 450.0, false);
+        Flight second = new Flight(2, "LH124", "Berlin", "New York", LocalDate.of(2025, 4, 21), 1, 0, 0, 450.0, false);
+        Customer alice = new Customer(1, "Alice", "12345", "alice@example.com", false);
+        Customer bob = new Customer(2, "Bob", "67890", "bob@example.com", false);
+        Booking booked = new Booking(1, alice, first, LocalDate.of(2025, 4, 1));
+        booked.setSeatType(SeatType.ECONOMY);
+        Booking moved = new Booking(1, alice, second, LocalDate.of(2025, 4, 1));
+        moved.setSeatType(SeatType.ECONOMY);
+        moved.setFee(30.0);
+        Booking bobs = new Booking(2, bob, first, LocalDate.of(2025, 4, 2));
+        bobs.setSeatType(SeatType.ECONOMY);
+        return new ArrayList<>(Arrays.asList(
+            JournalEntry.addFlight(first),
+            JournalEntry.addFlight(second),
+            JournalEntry.addCustomer(alice),
+            JournalEntry.addCustomer(bob),
+            JournalEntry.addBooking(booked),
+            JournalEntry.editBooking(moved),
+            JournalEntry.cancelBooking(alice, second),
+            JournalEntry.addBooking(bobs),
+            JournalEntry.deleteCustomer(alice),
+            JournalEntry.deleteFlight(first)));
+    }
+
+    private static Flight newFlight() {
+        return new Flight(1, "LH123", "Berlin", "New York", LocalDate.of(2025, 4, 20), 10, 5, 2, 450.0, false);
+    }
+
+    private static Journal open(File file) {
+        return new Journal(file.getPath(), CommitMode.SYNC, 0, 1, 16, 0);
+    }
+
+    private static void appendRaw(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
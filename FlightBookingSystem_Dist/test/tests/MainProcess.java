@@ -0,0 +1,97 @@
+package tests;
+
+import bcu.cmp5332.bookingsystem.main.Main;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the console application in its own JVM, in a directory of the test's
+ * choosing, so that tests can check what it leaves in <code>resources/data</code>
+ * and what it does on start-up and exit.
+ */
+final class MainProcess {
+
+    private MainProcess() {
+    }
+
+    /**
+     * Runs {@link Main} until it exits.
+     *
+     * @param dir        the working directory, holding <code>resources/data</code>
+     * @param input      the commands to type, one per line
+     * @param properties system properties to start the JVM with, as <code>name=value</code>
+     * @return everything the application printed, standard error included
+     */
+    static String run(Path dir, String input, String... properties) throws IOException, InterruptedException {
+        Process process = start(dir, properties);
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        String output = readAll(process.getInputStream());
+        if (!process.waitFor(60, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("The application did not exit; it printed:\n" + output);
+        }
+        return output;
+    }
+
+    /**
+     * Starts {@link Main}, leaving the caller to type commands into it and
+     * stop it.
+     *
+     * @param dir        the working directory, holding <code>resources/data</code>
+     * @param properties system properties to start the JVM with, as <code>name=value</code>
+     * @return the running process, its standard error merged into its output
+     */
+    static Process start(Path dir, String... properties) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String property : properties) {
+            command.add("-D" + property);
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+
+        return new ProcessBuilder(command)
+            .directory(dir.toFile())
+            .redirectErrorStream(true)
+            .start();
+    }
+
+    /**
+     * Reads the output of a started process until a line containing the given
+     * text, which it returns.
+     *
+     * @throws IOException if the output ends first
+     */
+    static String awaitLine(BufferedReader output, String text) throws IOException {
+        String line;
+        while ((line = output.readLine()) != null) {
+            if (line.contains(text)) {
+                return line;
+            }
+        }
+        throw new IOException("The application stopped before printing \"" + text + "\"");
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
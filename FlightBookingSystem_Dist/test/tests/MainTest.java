@@ -0,0 +1,94 @@
+package tests;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests that the console application gets journal entries still queued in
+ * <code>ASYNC</code> mode onto disk when asked to, and when it is stopped.
+ */
+class MainTest {
+    // Entries wait in the queue until something drains it
+    private static final String[] QUEUED = {
+        "fbs.journal.commitMode=ASYNC",
+        "fbs.journal.groupWindowMillis=600000",
+        "fbs.journal.maxLagMillis=600000",
+        "fbs.checkpoint.intervalMillis=0",
+        "fbs.checkpoint.journalBytes=0"
+    };
+
+    @TempDir
+    Path dir;
+
+    private File journal;
+
+    @BeforeEach
+    void createDataDirectory() {
+        File data = dir.resolve("resources/data").toFile();
+        assertTrue(data.mkdirs());
+        journal = new File(data, "journal.txt");
+    }
+
+    @Test
+    void testFlushCommandWritesQueuedEntries() throws Exception {
+        Process process = MainProcess.start(dir, QUEUED);
+        try {
+            BufferedReader output = output(process);
+            type(process, "addcustomer Zed 0123 zed@example.com");
+            MainProcess.awaitLine(output, "Customer added");
+            assertFalse(journaled("Zed"));
+
+            type(process, "flush");
+            MainProcess.awaitLine(output, "All changes have been written");
+            assertTrue(journaled("Zed"));
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    @Test
+    void testShutdownHookWritesQueuedEntries() throws Exception {
+        Process process = MainProcess.start(dir, QUEUED);
+        try {
+            BufferedReader output = output(process);
+            type(process, "addcustomer Zed 0123 zed@example.com");
+            MainProcess.awaitLine(output, "Customer added");
+            assertFalse(journaled("Zed"));
+
+            // Stopped without "exit", so only the shutdown hook can write the entry
+            process.destroy();
+            assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+            assertTrue(journaled("Zed"));
+        } finally {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private boolean journaled(String name) throws IOException {
+        return journal.exists()
+            && new String(Files.readAllBytes(journal.toPath()), StandardCharsets.UTF_8).contains(name);
+    }
+
+    private static BufferedReader output(Process process) {
+        return new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void type(Process process, String command) throws IOException {
+        OutputStream stdin = process.getOutputStream();
+        stdin.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+        stdin.flush();
+    }
+}
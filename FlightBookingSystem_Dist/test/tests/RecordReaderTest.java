@@ -0,0 +1,120 @@
+package tests;
+
+import bcu.cmp5332.bookingsystem.data.RecordReader;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Tests that the record reader parses the data files exactly as the
+ * <code>String.split</code> and <code>parseXxx</code> code it replaced did.
+ */
+class RecordReaderTest {
+
+    @Test
+    void testRecordLongerThanTheChunkIsReadWhole() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 200_000; i++) {
+            name.append((char) ('a' + i % 26));
+        }
+        RecordReader reader = reader("1::" + name + "::42\n2::short::7\n");
+
+        assertTrue(reader.nextRecord());
+        assertEquals(1, reader.nextInt());
+        assertEquals(name.toString(), reader.nextString());
+        assertEquals(42, reader.nextInt());
+        assertTrue(reader.nextRecord());
+        assertEquals(2, reader.nextInt());
+        assertEquals("short", reader.nextString());
+        assertEquals(7, reader.nextInt());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void testFinalLineWithoutNewlineIsRead() throws IOException {
+        RecordReader reader = reader("1::Alice\r\n\n2::Bob");
+
+        assertTrue(reader.nextRecord());
+        assertEquals(1, reader.nextInt());
+        assertEquals("Alice", reader.nextString());
+        assertTrue(reader.nextRecord());
+        assertEquals(3, reader.getLineNumber());
+        assertEquals(2, reader.nextInt());
+        assertEquals("Bob", reader.nextString());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void testEmptyTrailingFieldsAreEmptyStrings() throws IOException {
+        RecordReader reader = reader("1::Alice::::\n");
+
+        assertTrue(reader.nextRecord());
+        assertEquals(1, reader.nextInt());
+        assertEquals("Alice", reader.nextString());
+        assertEquals("", reader.nextString());
+        assertEquals("", reader.nextString());
+        assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    void testIntegersMatchParseInt() throws IOException {
+        RecordReader reader = reader("-2147483648::2147483647::+15::-0::007\n");
+        assertTrue(reader.nextRecord());
+        assertEquals(Integer.MIN_VALUE, reader.nextInt());
+        assertEquals(Integer.MAX_VALUE, reader.nextInt());
+        assertEquals(15, reader.nextInt());
+        assertEquals(0, reader.nextInt());
+        assertEquals(7, reader.nextInt());
+
+        for (String field : new String[] {"2147483648", "-2147483649", "99999999999999999999", "+", "-", "", "1.0", "12a"}) {
+            RecordReader bad = reader(field + "::end\n");
+            assertTrue(bad.nextRecord());
+            assertThrows(IOException.class, bad::nextInt);
+        }
+    }
+
+    @Test
+    void testDoublesMatchParseDouble() throws IOException {
+        String[] fields = {"450.0", "-0.5", "+2.25", "1.", ".5", "0.1", "3514.5",
+            "3.14159265358979323846", "12345678901234567", "0.0000000000000000000000001", "1e3", "-1.5E-2"};
+        RecordReader reader = reader(String.join("::", fields) + "\n");
+        assertTrue(reader.nextRecord());
+        for (String field : fields) {
+            assertEquals(Double.parseDouble(field), reader.nextDouble(), field);
+        }
+
+        for (String field : new String[] {".", "-", "+", "", "1.2.3", "abc", "+-1"}) {
+            RecordReader bad = reader(field + "::end\n");
+            assertTrue(bad.nextRecord());
+            assertThrows(IOException.class, bad::nextDouble);
+        }
+    }
+
+    @Test
+    void testDatesMatchLocalDateParse() throws IOException {
+        RecordReader reader = reader("2025-02-17::2024-02-29\n");
+        assertTrue(reader.nextRecord());
+        assertEquals(LocalDate.of(2025, 2, 17), reader.nextDate());
+        assertEquals(LocalDate.of(2024, 2, 29), reader.nextDate());
+
+        for (String field : new String[] {"2025-13-01", "2025-02-30", "2025/02/17", "2025-2-17", "20x5-02-17", ""}) {
+            RecordReader bad = reader(field + "::end\n");
+            assertTrue(bad.nextRecord());
+            assertThrows(IOException.class, bad::nextDate);
+        }
+    }
+
+    /**
+     * Returns a reader pulling the text from a channel, as it does from a file.
+     */
+    private static RecordReader reader(String text) {
+        return new RecordReader("test", Channels.newChannel(
+            new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+}